@@ -1,17 +1,30 @@
 import type {
   ActivityReactionSummaryResponse,
   AuthResponse,
+  BulkCompletionResponse,
+  CompletionOperationRequest,
+  FriendDashboardResponse,
   FriendInviteResponse,
   FriendResponse,
+  HabitEntryRequest,
+  HabitEntryResponse,
+  HabitHistoryResponse,
   HabitReactionSummaryResponse,
   HabitResponse,
   HabitStatsResponse,
+  HabitValuesResponse,
+  HeatmapResponse,
   NotificationResponse,
+  SyncResponse,
+  TodayResponse,
+  TrendBucket,
+  TrendsResponse,
   UserProfileResponse
 } from "./types";
 
 const API_BASE_URL = import.meta.env.VITE_API_BASE_URL ?? "http://localhost:8080";
 const TOKEN_KEY = "habit_jwt";
+const MUTATING_METHODS = new Set(["POST", "PUT", "PATCH", "DELETE"]);
 
 export function setToken(token: string): void {
   sessionStorage.setItem(TOKEN_KEY, token);
@@ -25,14 +38,15 @@ export function clearToken(): void {
   sessionStorage.removeItem(TOKEN_KEY);
 }
 
-export function resolveAssetUrl(url: string | null): string | null {
+export function resolveAssetUrl(url: string | null, size?: number): string | null {
   if (!url) {
     return null;
   }
   if (url.startsWith("http://") || url.startsWith("https://")) {
     return url;
   }
-  return `${API_BASE_URL}${url.startsWith("/") ? "" : "/"}${url}`;
+  const sized = size && url.startsWith("/api/files/") ? `${url}${url.includes("?") ? "&" : "?"}size=${size}` : url;
+  return `${API_BASE_URL}${sized.startsWith("/") ? "" : "/"}${sized}`;
 }
 
 export async function telegramAuth(initData: string): Promise<AuthResponse> {
@@ -83,8 +97,19 @@ export async function apiRequest<T>(path: string, init?: RequestInit): Promise<T
   if (token) {
     headers.set("Authorization", `Bearer ${token}`);
   }
+  const mutating = MUTATING_METHODS.has((init?.method ?? "GET").toUpperCase());
+  if (mutating && !headers.has("Idempotency-Key")) {
+    headers.set("Idempotency-Key", crypto.randomUUID());
+  }
 
-  const response = await fetch(`${API_BASE_URL}${path}`, { ...init, headers });
+  let response: Response;
+  try {
+    response = await fetch(`${API_BASE_URL}${path}`, { ...init, headers });
+  } catch (e) {
+    if (!mutating) throw e;
+    // The same Idempotency-Key lets the server answer the retry without applying the change twice.
+    response = await fetch(`${API_BASE_URL}${path}`, { ...init, headers });
+  }
   if (!response.ok) {
     if (response.status === 401) {
       clearToken();
@@ -126,6 +151,14 @@ export function uploadMyAvatar(file: File): Promise<UserProfileResponse> {
   });
 }
 
+export function getToday(): Promise<TodayResponse> {
+  return apiRequest<TodayResponse>("/api/today");
+}
+
+export function getSync(since?: number): Promise<SyncResponse> {
+  return apiRequest<SyncResponse>(since == null ? "/api/sync" : `/api/sync?since=${since}`);
+}
+
 export function getFriends(): Promise<FriendResponse[]> {
   return apiRequest<FriendResponse[]>("/api/friends");
 }
@@ -149,6 +182,10 @@ export function getFriendProfile(friendId: string): Promise<FriendResponse> {
   return apiRequest<FriendResponse>(`/api/friends/${friendId}/profile`);
 }
 
+export function getFriendDashboard(friendId: string): Promise<FriendDashboardResponse> {
+  return apiRequest<FriendDashboardResponse>(`/api/friends/${friendId}/dashboard`);
+}
+
 export function getFriendHabits(friendId: string): Promise<HabitResponse[]> {
   return apiRequest<HabitResponse[]>(`/api/friends/${friendId}/habits`);
 }
@@ -166,6 +203,78 @@ export function uploadHabitImage(habitId: string, file: File): Promise<HabitResp
   });
 }
 
+export function completeHabitsBatch(operations: CompletionOperationRequest[]): Promise<BulkCompletionResponse> {
+  return apiRequest<BulkCompletionResponse>("/api/habits/completions/batch", {
+    method: "POST",
+    body: JSON.stringify({ operations })
+  });
+}
+
+export function addHabitEntry(habitId: string, entry: HabitEntryRequest): Promise<HabitEntryResponse> {
+  return apiRequest<HabitEntryResponse>(`/api/habits/${habitId}/entries`, {
+    method: "POST",
+    body: JSON.stringify(entry)
+  });
+}
+
+export function deleteHabitEntry(habitId: string, entryId: string): Promise<void> {
+  return apiRequest<void>(`/api/habits/${habitId}/entries/${entryId}`, { method: "DELETE" });
+}
+
+export function getHabitValues(habitId: string, date?: string): Promise<HabitValuesResponse> {
+  const query = date ? `?date=${date}` : "";
+  return apiRequest<HabitValuesResponse>(`/api/habits/${habitId}/values${query}`);
+}
+
+export function getHabitHistory(
+  habitId: string,
+  page: { from?: string; to?: string; before?: string; limit?: number } = {}
+): Promise<HabitHistoryResponse> {
+  const params = new URLSearchParams();
+  if (page.from) params.set("from", page.from);
+  if (page.to) params.set("to", page.to);
+  if (page.before) params.set("before", page.before);
+  if (page.limit) params.set("limit", String(page.limit));
+  return apiRequest<HabitHistoryResponse>(`/api/habits/${habitId}/history?${params}`);
+}
+
+export function getHeatmap(habitIds: string[], from?: string, to?: string): Promise<HeatmapResponse> {
+  const params = new URLSearchParams({ habitIds: habitIds.join(",") });
+  if (from) params.set("from", from);
+  if (to) params.set("to", to);
+  return apiRequest<HeatmapResponse>(`/api/habits/heatmap?${params}`);
+}
+
+export function getTrends(habitIds: string[], bucket: TrendBucket, from?: string, to?: string): Promise<TrendsResponse> {
+  const params = new URLSearchParams({ habitIds: habitIds.join(","), bucket });
+  if (from) params.set("from", from);
+  if (to) params.set("to", to);
+  return apiRequest<TrendsResponse>(`/api/habits/trends?${params}`);
+}
+
+export function decodeHeatmapBits(bits: string): Uint8Array {
+  return Uint8Array.from(atob(bits), (char) => char.charCodeAt(0));
+}
+
+export function isHeatmapDayCompleted(bits: Uint8Array, day: number): boolean {
+  return (bits[day >> 3] & (1 << (day & 7))) !== 0;
+}
+
+export function currentStreakOn(habit: HabitResponse, today: Date = new Date()): number {
+  if (!habit.streakLatestEnd) {
+    return 0;
+  }
+  const day = new Date(today.getFullYear(), today.getMonth(), today.getDate());
+  const [year, month, date] = habit.streakLatestEnd.split("-").map(Number);
+  const end = new Date(year, month - 1, date);
+  if (habit.type === "DAILY") {
+    const yesterday = new Date(day.getFullYear(), day.getMonth(), day.getDate() - 1);
+    return end.getTime() === day.getTime() || end.getTime() === yesterday.getTime() ? habit.streakLatestLength : 0;
+  }
+  const weekStart = new Date(day.getFullYear(), day.getMonth(), day.getDate() - ((day.getDay() + 6) % 7));
+  return end.getTime() === weekStart.getTime() ? habit.streakLatestLength : 0;
+}
+
 export function deleteHabit(habitId: string): Promise<void> {
   return apiRequest<void>(`/api/habits/${habitId}`, { method: "DELETE" });
 }
@@ -139,7 +139,7 @@ export function ActivityPage() {
         <div key={section.date} className="space-y-2">
           <p className="px-1 text-xs font-semibold uppercase tracking-wide text-slate-400">{section.date}</p>
           {section.items.map((item, idx) => {
-            const actorPhoto = resolveAssetUrl(item.actorPhotoUrl);
+            const actorPhoto = resolveAssetUrl(item.actorPhotoUrl, 128);
             return (
               <article key={item.id} className="glass-card card-enter p-4" style={{ animationDelay: `${idx * 40}ms` }}>
                 <div className="flex items-center justify-between gap-3">
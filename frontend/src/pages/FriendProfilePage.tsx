@@ -1,7 +1,7 @@
 import { useEffect, useState } from "react";
 import { Link, useParams } from "react-router-dom";
 import { useTranslation } from "react-i18next";
-import { getFriendHabits, getFriendProfile, getHabitReactions, resolveAssetUrl, toggleHabitReaction } from "../api";
+import { getFriendDashboard, resolveAssetUrl, toggleHabitReaction } from "../api";
 import { hapticImpact } from "../telegram";
 import { ImageLightbox } from "../components/ImageLightbox";
 import { SkeletonList } from "../components/Skeleton";
@@ -30,21 +30,11 @@ export function FriendProfilePage() {
     if (!friendId) return;
     setLoading(true);
     setError(null);
-    Promise.all([getFriendProfile(friendId), getFriendHabits(friendId)])
-      .then(([profile, habitsList]) => {
-        setFriend(profile);
-        const visibleHabits = habitsList.filter((habit) => !habit.archived);
-        setHabits(visibleHabits);
-        return visibleHabits;
-      })
-      .then(async (visibleHabits) => {
-        const entries = await Promise.all(
-          visibleHabits.map(async (habit) => {
-            const reactions = await getHabitReactions(friendId, habit.id);
-            return [habit.id, reactions] as const;
-          })
-        );
-        setReactionsByHabit(Object.fromEntries(entries));
+    getFriendDashboard(friendId)
+      .then((dashboard) => {
+        setFriend(dashboard.profile);
+        setHabits(dashboard.habits.map((item) => item.habit));
+        setReactionsByHabit(Object.fromEntries(dashboard.habits.map((item) => [item.habit.id, item.reactions])));
       })
       .catch((e: Error) => setError(e.message))
       .finally(() => setLoading(false));
@@ -113,7 +103,7 @@ export function FriendProfilePage() {
                         }
                       }}
                     >
-                      <img src={resolveAssetUrl(habit.imageUrl) ?? ""} alt={habit.title} className="h-9 w-9 rounded-lg object-cover" />
+                      <img src={resolveAssetUrl(habit.imageUrl, 128) ?? ""} alt={habit.title} className="h-9 w-9 rounded-lg object-cover" />
                     </button>
                   ) : (
                     <div className="grid h-9 w-9 place-items-center rounded-lg bg-white text-lg shadow-sm">{habit.icon}</div>
@@ -165,7 +165,7 @@ export function FriendsPage() {
         {!loading && friends.length === 0 && <p className="text-sm text-slate-500">{t("noFriends")}</p>}
         <div className="space-y-2">
           {friends.map((friend) => {
-            const avatar = resolveAssetUrl(friend.photoUrl);
+            const avatar = resolveAssetUrl(friend.photoUrl, 128);
             return (
               <div key={friend.id} className="flex items-center gap-3 rounded-2xl bg-white/70 p-2.5">
                 {avatar ? (
@@ -11,7 +11,9 @@ const defaultForm: HabitRequest = {
   timesPerWeek: null,
   color: "#74b9ff",
   icon: "🔥",
-  archived: false
+  archived: false,
+  unit: null,
+  dailyTarget: null
 };
 
 const colors = ["#74b9ff", "#8be9b3", "#ffb36a", "#fca5a5", "#c4b5fd"];
@@ -47,7 +49,9 @@ export function HabitFormPage() {
           timesPerWeek: habit.timesPerWeek,
           color: habit.color,
           icon: habit.icon,
-          archived: habit.archived
+          archived: habit.archived,
+          unit: habit.unit,
+          dailyTarget: habit.dailyTarget
         });
         setHabitIdForImage(habit.id);
         setHabitImageUrl(habit.imageUrl);
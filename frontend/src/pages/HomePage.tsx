@@ -1,11 +1,11 @@
 import { useEffect, useRef, useState, type TouchEventHandler } from "react";
 import { Link } from "react-router-dom";
 import { useTranslation } from "react-i18next";
-import { apiRequest, resolveAssetUrl } from "../api";
+import { apiRequest, getToday, resolveAssetUrl } from "../api";
 import { hapticImpact } from "../telegram";
 import { ImageLightbox } from "../components/ImageLightbox";
 import { SkeletonList } from "../components/Skeleton";
-import type { HabitCompletionResponse, HabitResponse } from "../types";
+import type { HabitResponse } from "../types";
 
 function weekDaysFromToday(now: Date): Date[] {
   const monday = new Date(now);
@@ -74,19 +74,11 @@ export function HomePage() {
     setLoading(true);
     setError(null);
     try {
-      const data = await apiRequest<HabitResponse[]>("/api/habits");
-      const activeHabits = data.filter((h) => !h.archived);
-      setHabits(activeHabits);
-
-      const weekKeys = new Set(weekDaysFromToday(new Date()).map((d) => d.toISOString().slice(0, 10)));
-      const histories = await Promise.all(
-        activeHabits.map(async (habit) => {
-          const history = await apiRequest<HabitCompletionResponse[]>(`/api/habits/${habit.id}/history`);
-          const done = new Set(history.map((entry) => entry.date).filter((date) => weekKeys.has(date)));
-          return [habit.id, done] as const;
-        })
+      const today = await getToday();
+      setHabits(today.habits.map((item) => item.habit));
+      setHabitWeekCompletions(
+        Object.fromEntries(today.habits.map((item) => [item.habit.id, new Set(item.completedDatesThisWeek)]))
       );
-      setHabitWeekCompletions(Object.fromEntries(histories));
     } catch (e) {
       setError((e as Error).message);
     } finally {
@@ -190,7 +182,7 @@ export function HomePage() {
                     }
                   }}
                 >
-                  <img src={resolveAssetUrl(habit.imageUrl) ?? ""} alt={habit.title} className="mt-0.5 h-10 w-10 rounded-xl object-cover shadow-sm" />
+                  <img src={resolveAssetUrl(habit.imageUrl, 128) ?? ""} alt={habit.title} className="mt-0.5 h-10 w-10 rounded-xl object-cover shadow-sm" />
                 </button>
               ) : (
                 <div className="mt-0.5 text-2xl">{habit.icon}</div>
@@ -83,7 +83,7 @@ export function NotificationsPage() {
       {items.length === 0 && <div className="glass-card p-4 text-sm text-slate-500">{t("noNotifications")}</div>}
 
       {items.map((item) => {
-        const actorPhoto = resolveAssetUrl(item.actorPhotoUrl);
+        const actorPhoto = resolveAssetUrl(item.actorPhotoUrl, 128);
         return (
           <article
             key={item.id}
@@ -12,12 +12,16 @@ export interface HabitResponse {
   title: string;
   type: HabitType;
   timesPerWeek: number | null;
+  unit: string | null;
+  dailyTarget: number | null;
   color: string;
   icon: string;
   imageUrl: string | null;
   archived: boolean;
   currentStreak: number;
   bestStreak: number;
+  streakLatestEnd: string | null;
+  streakLatestLength: number;
   createdAt: string;
 }
 
@@ -28,6 +32,8 @@ export interface HabitRequest {
   color: string;
   icon: string;
   archived: boolean;
+  unit: string | null;
+  dailyTarget: number | null;
 }
 
 export interface ActivityResponse {
@@ -69,6 +75,21 @@ export interface HabitStatsResponse {
   bestStreak: number;
 }
 
+export interface TodayHabitResponse {
+  habit: HabitResponse;
+  completedToday: boolean;
+  completedDatesThisWeek: string[];
+  completedThisWeek: number;
+  targetThisWeek: number;
+  completionPercentWeek: number;
+}
+
+export interface TodayResponse {
+  date: string;
+  habits: TodayHabitResponse[];
+  unreadNotifications: number;
+}
+
 export interface HabitCompletionResponse {
   id: string;
   date: string;
@@ -76,12 +97,129 @@ export interface HabitCompletionResponse {
   createdAt: string;
 }
 
+export interface HabitEntryRequest {
+  amount: number;
+  date?: string;
+}
+
+export interface PeriodValueResponse {
+  periodStart: string;
+  total: number;
+  target: number;
+  entries: number;
+  percent: number;
+}
+
+export interface HabitValuesResponse {
+  date: string;
+  unit: string | null;
+  dailyTarget: number;
+  day: PeriodValueResponse;
+  week: PeriodValueResponse;
+  month: PeriodValueResponse;
+}
+
+export interface HabitEntryResponse {
+  id: string;
+  habitId: string;
+  date: string;
+  amount: number;
+  createdAt: string;
+  values: HabitValuesResponse;
+}
+
+export interface HabitHistoryResponse {
+  items: HabitCompletionResponse[];
+  nextBefore: string | null;
+}
+
+export interface CompletionOperationRequest {
+  habitId: string;
+  date: string;
+  completed: boolean;
+}
+
+export interface CompletionOperationResult {
+  index: number;
+  habitId: string;
+  date: string;
+  completed: boolean;
+  status: "APPLIED" | "UNCHANGED" | "REJECTED";
+  error: string | null;
+}
+
+export interface BulkCompletionResponse {
+  results: CompletionOperationResult[];
+}
+
+export type TrendBucket = "DAY" | "WEEK" | "MONTH" | "QUARTER" | "YEAR";
+
+export interface TrendPointResponse {
+  start: string;
+  end: string;
+  completed: number;
+  possible: number;
+  ratePercent: number;
+}
+
+export interface TrendSeriesResponse {
+  habitId: string;
+  type: HabitType;
+  total: TrendPointResponse;
+  points: TrendPointResponse[];
+}
+
+export interface TrendsResponse {
+  from: string;
+  to: string;
+  bucket: TrendBucket;
+  series: TrendSeriesResponse[];
+}
+
+export interface HabitHeatmapResponse {
+  habitId: string;
+  bits: string;
+}
+
+export interface HeatmapResponse {
+  from: string;
+  days: number;
+  habits: HabitHeatmapResponse[];
+}
+
+export interface SyncCompletionResponse {
+  id: string;
+  habitId: string;
+  date: string;
+  createdAt: string;
+}
+
+export interface SyncResponse {
+  seq: number;
+  full: boolean;
+  habits: HabitResponse[];
+  completions: SyncCompletionResponse[];
+  deletedHabitIds: string[];
+  deletedCompletionIds: string[];
+}
+
 export interface HabitReactionSummaryResponse {
   emoji: string;
   count: number;
   mine: boolean;
 }
 
+export interface FriendHabitResponse {
+  habit: HabitResponse;
+  stats: HabitStatsResponse;
+  reactions: HabitReactionSummaryResponse[];
+}
+
+export interface FriendDashboardResponse {
+  profile: FriendResponse;
+  habits: FriendHabitResponse[];
+}
+
 export interface ActivityReactionSummaryResponse {
   emoji: string;
   count: number;
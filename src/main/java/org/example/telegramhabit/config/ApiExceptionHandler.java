@@ -11,6 +11,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -61,6 +63,13 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(baseBody(HttpStatus.NOT_FOUND, ex.getMessage()));
     }
 
+    @ExceptionHandler(NoResourceFoundException.class)
+    // Что делает: обрабатывает запрос несуществующего статического файла.
+    // Как делает: отдаёт 404 вместо общей 500, в том числе для закрытых от статики файлов хранилища картинок.
+    public ResponseEntity<Map<String, Object>> handleNoResource(NoResourceFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(baseBody(HttpStatus.NOT_FOUND, "Not found"));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     // Что делает: обрабатывает исключение и формирует корректный HTTP-ответ.
     // Как делает: берёт контекст ошибки, собирает тело ответа и выставляет подходящий HTTP-статус.
@@ -68,6 +77,14 @@ public class ApiExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(baseBody(HttpStatus.FORBIDDEN, ex.getMessage()));
     }
 
+    @ExceptionHandler(ResponseStatusException.class)
+    // Что делает: обрабатывает исключение и формирует корректный HTTP-ответ.
+    // Как делает: берёт статус из исключения (например 429 при перегрузке загрузок) и отдаёт его с текстом причины.
+    public ResponseEntity<Map<String, Object>> handleResponseStatus(ResponseStatusException ex) {
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        return ResponseEntity.status(status).body(baseBody(status, ex.getReason()));
+    }
+
     @ExceptionHandler(Exception.class)
     // Что делает: обрабатывает исключение и формирует корректный HTTP-ответ.
     // Как делает: берёт контекст ошибки, собирает тело ответа и выставляет подходящий HTTP-статус.
@@ -1,6 +1,9 @@
 package org.example.telegramhabit.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.telegramhabit.security.IdempotencyFilter;
 import org.example.telegramhabit.security.JwtAuthenticationFilter;
+import org.example.telegramhabit.service.IdempotencyStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,7 +30,12 @@ public class SecurityConfig {
     private String allowedOrigins;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            JwtAuthenticationFilter jwtFilter,
+            IdempotencyStore idempotencyStore,
+            ObjectMapper objectMapper
+    ) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(c -> c.configurationSource(corsConfigurationSource()))
@@ -39,6 +47,7 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new IdempotencyFilter(idempotencyStore, objectMapper), UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
 
@@ -0,0 +1,112 @@
+package org.example.telegramhabit.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.telegramhabit.service.ImageStore;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+// Что делает: переносит содержимое картинок из stored_image.data в ImageStore (миграция V8).
+// Как делает: пачками читает строки с непустым data, пишет байты в хранилище, проставляет хэш и размер и обнуляет data.
+public class StoredImageFileSystemMigration implements JavaMigration {
+
+    private static final int BATCH_SIZE = 50;
+
+    private final ImageStore imageStore;
+
+    @Override
+    // Что делает: возвращает версию миграции для Flyway.
+    // Как делает: ставит миграцию между V7 (новые колонки) и V9 (удаление data).
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("8");
+    }
+
+    @Override
+    // Что делает: возвращает описание миграции для истории Flyway.
+    // Как делает: отдаёт фиксированную строку.
+    public String getDescription() {
+        return "move stored images to filesystem";
+    }
+
+    @Override
+    // Что делает: возвращает контрольную сумму миграции.
+    // Как делает: у Java-миграции нет файла, поэтому контрольная сумма не используется.
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    // Что делает: сообщает Flyway, можно ли выполнять миграцию в транзакции.
+    // Как делает: разрешает транзакцию, чтобы при ошибке метаданные откатились целиком.
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    // Что делает: выполняет перенос картинок.
+    // Как делает: повторяет выборку пачки, пока в таблице остаются строки с данными в bytea.
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        long moved = 0;
+        long bytes = 0;
+        while (true) {
+            List<MovedImage> batch = moveBatch(connection);
+            if (batch.isEmpty()) {
+                break;
+            }
+            updateMetadata(connection, batch);
+            moved += batch.size();
+            bytes += batch.stream().mapToLong(image -> image.blob().sizeBytes()).sum();
+        }
+        log.info("Moved {} stored images ({} bytes) to image store", moved, bytes);
+    }
+
+    // Что делает: переносит одну пачку картинок в хранилище.
+    // Как делает: читает id и data, пишет каждую картинку в ImageStore и возвращает полученные адреса.
+    private List<MovedImage> moveBatch(Connection connection) throws SQLException {
+        List<MovedImage> batch = new ArrayList<>(BATCH_SIZE);
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, data from stored_image where data is not null limit " + BATCH_SIZE)) {
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    UUID id = rows.getObject("id", UUID.class);
+                    batch.add(new MovedImage(id, imageStore.put(rows.getBytes("data"))));
+                }
+            }
+        }
+        return batch;
+    }
+
+    // Что делает: сохраняет метаданные перенесённых картинок.
+    // Как делает: одним batch-UPDATE проставляет content_hash и size_bytes и обнуляет data.
+    private void updateMetadata(Connection connection, List<MovedImage> batch) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "update stored_image set content_hash = ?, size_bytes = ?, data = null where id = ?")) {
+            for (MovedImage image : batch) {
+                update.setString(1, image.blob().contentHash());
+                update.setLong(2, image.blob().sizeBytes());
+                update.setObject(3, image.id());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    // Что делает: описывает картинку, перенесённую в хранилище.
+    // Как делает: связывает id строки с адресом содержимого.
+    private record MovedImage(UUID id, ImageStore.StoredBlob blob) {
+    }
+}
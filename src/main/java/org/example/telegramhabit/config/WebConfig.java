@@ -2,9 +2,12 @@ package org.example.telegramhabit.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -16,12 +19,30 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.storage.upload-dir:uploads}")
     private String uploadDir;
 
+    @Value("${app.storage.image-dir:images}")
+    private String imageDir;
+
     @Override
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: раздаёт upload-dir по /uploads/**, но не отдаёт файлы хранилища картинок, если его каталог
+    // настроен внутри upload-dir: сырые блобы и временные файлы загрузок должны идти только через FileController.
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         Path absolute = Paths.get(uploadDir).toAbsolutePath().normalize();
+        Path imageRoot = Paths.get(imageDir).toAbsolutePath().normalize();
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + absolute.toString() + "/");
+                .addResourceLocations("file:" + absolute.toString() + "/")
+                .resourceChain(true)
+                .addResolver(new PathResourceResolver() {
+                    @Override
+                    // Что делает: находит файл upload-dir по пути запроса.
+                    // Как делает: отказывает (404), если файл лежит в каталоге хранилища картинок.
+                    protected Resource getResource(String resourcePath, Resource location) throws IOException {
+                        Resource resource = super.getResource(resourcePath, location);
+                        if (resource != null && resource.getFile().toPath().toAbsolutePath().normalize().startsWith(imageRoot)) {
+                            return null;
+                        }
+                        return resource;
+                    }
+                });
     }
 }
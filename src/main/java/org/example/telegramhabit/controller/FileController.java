@@ -1,14 +1,15 @@
 package org.example.telegramhabit.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.example.telegramhabit.entity.StoredImageEntity;
 import org.example.telegramhabit.service.AvatarStorageService;
+import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.UUID;
@@ -25,12 +26,31 @@ public class FileController {
 
     @GetMapping("/{id}")
     // Что делает: читает и возвращает данные для API или внутренней логики.
-    // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
-    public ResponseEntity<byte[]> get(@PathVariable UUID id) {
-        StoredImageEntity image = avatarStorageService.requireImage(id);
+    // Как делает: при ?size= берёт ближайший не меньший вариант и отдаёт файл потоком как Resource с сильным ETag из хэша
+    // содержимого; Spring MVC по этому ETag отвечает 304 на If-None-Match, а по заголовку Range отдаёт 206 с Content-Length.
+    public ResponseEntity<Resource> get(@PathVariable UUID id, @RequestParam(required = false) Integer size) {
+        AvatarStorageService.ImageContent content = avatarStorageService.requireContent(id, size);
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(image.getContentType()))
+                .contentType(MediaType.parseMediaType(content.contentType()))
                 .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS))
-                .body(image.getData());
+                .eTag(content.contentHash())
+                .body(content.resource());
+    }
+
+    @GetMapping("/{id}/{version}")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: отдаёт картинку по URL с версией из хэша содержимого; такой URL никогда не меняет содержимое,
+    // поэтому ответ помечается public, max-age на год и immutable, и клиенты с прокси его не перепроверяют.
+    public ResponseEntity<Resource> getVersioned(
+            @PathVariable UUID id,
+            @PathVariable String version,
+            @RequestParam(required = false) Integer size
+    ) {
+        AvatarStorageService.ImageContent content = avatarStorageService.requireContent(id, version, size);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(content.contentType()))
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .eTag(content.contentHash())
+                .body(content.resource());
     }
 }
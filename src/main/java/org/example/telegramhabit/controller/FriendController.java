@@ -3,17 +3,21 @@ package org.example.telegramhabit.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.telegramhabit.dto.AcceptFriendInviteRequest;
+import org.example.telegramhabit.dto.FriendDashboardResponse;
 import org.example.telegramhabit.dto.FriendInviteResponse;
 import org.example.telegramhabit.dto.HabitReactionRequest;
 import org.example.telegramhabit.dto.HabitReactionSummaryResponse;
 import org.example.telegramhabit.dto.FriendResponse;
 import org.example.telegramhabit.dto.HabitResponse;
 import org.example.telegramhabit.dto.HabitStatsResponse;
+import org.example.telegramhabit.dto.LeaderboardEntryResponse;
 import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.security.SecurityUtils;
+import org.example.telegramhabit.service.FriendDashboardService;
 import org.example.telegramhabit.service.FriendService;
 import org.example.telegramhabit.service.HabitReactionService;
 import org.example.telegramhabit.service.HabitService;
+import org.example.telegramhabit.service.LeaderboardService;
 import org.example.telegramhabit.service.UserService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -38,6 +42,8 @@ public class FriendController {
     private final HabitReactionService habitReactionService;
     private final HabitService habitService;
     private final UserService userService;
+    private final LeaderboardService leaderboardService;
+    private final FriendDashboardService friendDashboardService;
 
     @GetMapping
     // Что делает: читает и возвращает данные для API или внутренней логики.
@@ -46,6 +52,13 @@ public class FriendController {
         return friendService.listFriends(currentUser());
     }
 
+    @GetMapping("/leaderboard")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: отдаёт лидерборд пользователя и друзей, отсортированный по streak (по умолчанию), weekly или total.
+    public List<LeaderboardEntryResponse> leaderboard(@RequestParam(defaultValue = "streak") String sort) {
+        return leaderboardService.leaderboard(currentUser(), sort);
+    }
+
     @PostMapping("/invite")
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
     // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
@@ -74,6 +87,13 @@ public class FriendController {
         return friendService.friendProfile(currentUser(), friendId);
     }
 
+    @GetMapping("/{friendId}/dashboard")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: одним ответом отдаёт профиль друга, его активные привычки, статистику и реакции по каждой.
+    public FriendDashboardResponse dashboard(@PathVariable UUID friendId) {
+        return friendDashboardService.dashboard(currentUser(), friendId);
+    }
+
     @GetMapping("/{friendId}/habits")
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
@@ -2,14 +2,25 @@ package org.example.telegramhabit.controller;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.BulkCompletionRequest;
+import org.example.telegramhabit.dto.BulkCompletionResponse;
 import org.example.telegramhabit.dto.HabitCompletionResponse;
+import org.example.telegramhabit.dto.HabitEntryRequest;
+import org.example.telegramhabit.dto.HabitEntryResponse;
+import org.example.telegramhabit.dto.HabitHistoryResponse;
 import org.example.telegramhabit.dto.HabitRequest;
 import org.example.telegramhabit.dto.HabitResponse;
 import org.example.telegramhabit.dto.HabitStatsResponse;
+import org.example.telegramhabit.dto.HabitValuesResponse;
+import org.example.telegramhabit.dto.HeatmapResponse;
+import org.example.telegramhabit.dto.TrendBucket;
+import org.example.telegramhabit.dto.TrendsResponse;
 import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.security.SecurityUtils;
 import org.example.telegramhabit.service.HabitCompletionService;
 import org.example.telegramhabit.service.HabitService;
+import org.example.telegramhabit.service.HabitTrendsService;
+import org.example.telegramhabit.service.HabitValueService;
 import org.example.telegramhabit.service.UserService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -40,6 +51,8 @@ public class HabitController {
 
     private final HabitService habitService;
     private final HabitCompletionService completionService;
+    private final HabitValueService habitValueService;
+    private final HabitTrendsService habitTrendsService;
     private final UserService userService;
 
     @GetMapping
@@ -74,9 +87,45 @@ public class HabitController {
 
     @PostMapping("/{id}/complete")
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    public HabitCompletionResponse complete(@PathVariable UUID id) {
-        return completionService.complete(currentUser(), id);
+    // Как делает: отмечает выполнение за сегодня или, с параметром date, за прошедший день в пределах окна.
+    public HabitCompletionResponse complete(
+            @PathVariable UUID id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return completionService.complete(currentUser(), id, date == null ? LocalDate.now() : date);
+    }
+
+    @PostMapping("/completions/batch")
+    // Что делает: применяет пакет отметок выполнения за один запрос.
+    // Как делает: делегирует HabitCompletionService и возвращает результат по каждой операции.
+    public BulkCompletionResponse completeBatch(@Valid @RequestBody BulkCompletionRequest request) {
+        return completionService.applyBatch(currentUser(), request.operations());
+    }
+
+    @PostMapping("/{id}/entries")
+    @ResponseStatus(HttpStatus.CREATED)
+    // Что делает: создаёт или сохраняет данные и возвращает результат операции.
+    // Как делает: записывает количество для количественной привычки и возвращает запись с обновлёнными суммами.
+    public HabitEntryResponse addEntry(@PathVariable UUID id, @Valid @RequestBody HabitEntryRequest request) {
+        return habitValueService.addEntry(currentUser(), id, request);
+    }
+
+    @DeleteMapping("/{id}/entries/{entryId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    // Что делает: удаляет данные по условиям метода с учётом связей.
+    // Как делает: удаляет запись количества и вычитает её из сумм.
+    public void deleteEntry(@PathVariable UUID id, @PathVariable UUID entryId) {
+        habitValueService.deleteEntry(currentUser(), id, entryId);
+    }
+
+    @GetMapping("/{id}/values")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: отдаёт суммы количественной привычки за день, неделю и месяц даты (по умолчанию сегодня).
+    public HabitValuesResponse values(
+            @PathVariable UUID id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        return habitValueService.values(currentUser(), id, date);
     }
 
     @PostMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -97,11 +146,40 @@ public class HabitController {
         completionService.uncomplete(currentUser(), id, date);
     }
 
+    @GetMapping("/heatmap")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: отдаёт битовые карты выполнений выбранных привычек; по умолчанию за последние 365 дней.
+    public HeatmapResponse heatmap(
+            @RequestParam List<UUID> habitIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return completionService.heatmap(currentUser(), habitIds, from, to);
+    }
+
+    @GetMapping("/trends")
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: отдаёт ряды процента выполнения выбранных привычек по календарным корзинам диапазона.
+    public TrendsResponse trends(
+            @RequestParam List<UUID> habitIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) TrendBucket bucket
+    ) {
+        return habitTrendsService.trends(currentUser(), habitIds, from, to, bucket);
+    }
+
     @GetMapping("/{id}/history")
     // Что делает: читает и возвращает данные для API или внутренней логики.
-    // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
-    public List<HabitCompletionResponse> history(@PathVariable UUID id) {
-        return completionService.history(currentUser(), id);
+    // Как делает: отдаёт страницу истории в диапазоне from..to; следующую страницу клиент просит с before = nextBefore.
+    public HabitHistoryResponse history(
+            @PathVariable UUID id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return completionService.history(currentUser(), id, from, to, before, limit);
     }
 
     @GetMapping("/{id}/stats")
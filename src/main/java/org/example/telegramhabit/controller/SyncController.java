@@ -0,0 +1,29 @@
+package org.example.telegramhabit.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.SyncResponse;
+import org.example.telegramhabit.security.SecurityUtils;
+import org.example.telegramhabit.service.SyncService;
+import org.example.telegramhabit.service.UserService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/sync")
+// Что делает: отдаёт дельту изменений для локальной копии данных клиента.
+// Как делает: принимает номер последнего полученного изменения и возвращает всё, что изменилось после него.
+public class SyncController {
+
+    private final SyncService syncService;
+    private final UserService userService;
+
+    @GetMapping
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: без параметра since возвращает полный снимок, с ним — только изменения после этого номера.
+    public SyncResponse sync(@RequestParam(required = false) Long since) {
+        return syncService.changesSince(userService.requireById(SecurityUtils.currentUserId()), since);
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.telegramhabit.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.TodayResponse;
+import org.example.telegramhabit.security.SecurityUtils;
+import org.example.telegramhabit.service.TodayService;
+import org.example.telegramhabit.service.UserService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/today")
+// Что делает: отдаёт данные главного экрана Mini App.
+// Как делает: возвращает одним запросом привычки на сегодня, их прогресс и счётчик непрочитанных уведомлений.
+public class TodayController {
+
+    private final TodayService todayService;
+    private final UserService userService;
+
+    @GetMapping
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: берёт текущего пользователя и делегирует сборку ответа TodayService.
+    public TodayResponse today() {
+        return todayService.today(userService.requireById(SecurityUtils.currentUserId()));
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.telegramhabit.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Что делает: описывает пакет отметок выполнения, накопленных клиентом (например, офлайн-очередь).
+// Как делает: хранит операции в порядке их совершения; их число ограничено, чтобы одна транзакция не росла без предела.
+public record BulkCompletionRequest(
+        @NotNull @Size(min = 1, max = 500) List<@Valid @NotNull CompletionOperationRequest> operations
+) {
+}
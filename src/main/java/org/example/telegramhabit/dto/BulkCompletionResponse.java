@@ -0,0 +1,10 @@
+package org.example.telegramhabit.dto;
+
+import java.util.List;
+
+// Что делает: описывает ответ на пакет отметок выполнения.
+// Как делает: хранит результаты в том же порядке, что и операции запроса, чтобы клиент мог очистить свою очередь.
+public record BulkCompletionResponse(
+        List<CompletionOperationResult> results
+) {
+}
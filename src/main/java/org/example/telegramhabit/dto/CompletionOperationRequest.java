@@ -0,0 +1,15 @@
+package org.example.telegramhabit.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Что делает: описывает одну операцию из пакета отметок выполнения.
+// Как делает: хранит привычку, дату и желаемое состояние: выполнена или нет.
+public record CompletionOperationRequest(
+        @NotNull UUID habitId,
+        @NotNull LocalDate date,
+        boolean completed
+) {
+}
@@ -0,0 +1,24 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Что делает: описывает результат одной операции из пакета отметок выполнения.
+// Как делает: хранит номер операции в запросе, её параметры, итоговый статус и причину отказа, если он был.
+public record CompletionOperationResult(
+        int index,
+        UUID habitId,
+        LocalDate date,
+        boolean completed,
+        Status status,
+        String error
+) {
+
+    // Что делает: перечисляет исходы операции.
+    // Как делает: APPLIED — состояние изменено, UNCHANGED — уже было таким, REJECTED — операция отклонена.
+    public enum Status {
+        APPLIED,
+        UNCHANGED,
+        REJECTED
+    }
+}
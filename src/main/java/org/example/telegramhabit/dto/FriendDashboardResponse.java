@@ -0,0 +1,11 @@
+package org.example.telegramhabit.dto;
+
+import java.util.List;
+
+// Что делает: описывает всё содержимое экрана профиля друга.
+// Как делает: хранит профиль друга и его активные привычки со статистикой и реакциями.
+public record FriendDashboardResponse(
+        FriendResponse profile,
+        List<FriendHabitResponse> habits
+) {
+}
@@ -0,0 +1,12 @@
+package org.example.telegramhabit.dto;
+
+import java.util.List;
+
+// Что делает: описывает привычку друга на экране его профиля.
+// Как делает: объединяет саму привычку, её статистику и сводку реакций в одном объекте.
+public record FriendHabitResponse(
+        HabitResponse habit,
+        HabitStatsResponse stats,
+        List<HabitReactionSummaryResponse> reactions
+) {
+}
@@ -0,0 +1,14 @@
+package org.example.telegramhabit.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.time.LocalDate;
+
+// Что делает: описывает запись количества для количественной привычки.
+// Как делает: хранит положительное количество в единицах привычки и необязательный день (по умолчанию сегодня).
+public record HabitEntryRequest(
+        @NotNull @Positive Long amount,
+        LocalDate date
+) {
+}
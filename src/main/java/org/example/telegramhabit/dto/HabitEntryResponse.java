@@ -0,0 +1,17 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Что делает: описывает сохранённую запись количества вместе с обновлёнными суммами.
+// Как делает: хранит саму запись и суммы за её день, неделю и месяц после записи.
+public record HabitEntryResponse(
+        UUID id,
+        UUID habitId,
+        LocalDate date,
+        long amount,
+        LocalDateTime createdAt,
+        HabitValuesResponse values
+) {
+}
@@ -0,0 +1,12 @@
+package org.example.telegramhabit.dto;
+
+import java.util.UUID;
+
+// Что делает: описывает карту выполнений одной привычки за период.
+// Как делает: хранит id привычки и битовую строку в base64, где бит i (младший бит байта i / 8 идёт первым)
+// означает выполнение в день from + i.
+public record HabitHeatmapResponse(
+        UUID habitId,
+        String bits
+) {
+}
@@ -0,0 +1,12 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Что делает: описывает одну страницу истории выполнений привычки.
+// Как делает: хранит отметки от новых к старым и курсор nextBefore для следующей страницы (null, если страниц больше нет).
+public record HabitHistoryResponse(
+        List<HabitCompletionResponse> items,
+        LocalDate nextBefore
+) {
+}
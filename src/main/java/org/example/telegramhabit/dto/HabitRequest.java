@@ -4,6 +4,8 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.example.telegramhabit.entity.HabitType;
 
 // Что делает: описывает ключевой компонент backend-слоя приложения.
@@ -14,6 +16,8 @@ public record HabitRequest(
         @Min(1) @Max(7) Integer timesPerWeek,
         @NotBlank String color,
         @NotBlank String icon,
-        boolean archived
+        boolean archived,
+        @Size(max = 32) String unit,
+        @Positive Long dailyTarget
 ) {
 }
@@ -2,22 +2,29 @@ package org.example.telegramhabit.dto;
 
 import org.example.telegramhabit.entity.HabitType;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 // Что делает: описывает ключевой компонент backend-слоя приложения.
-// Как делает: объявляет структуру и контракт, который используют остальные части системы.
+// Как делает: объявляет структуру и контракт, который используют остальные части системы; currentStreak посчитан
+// на дату ответа, а streakLatestEnd/streakLatestLength — последняя серия, по которой клиент пересчитывает текущую
+// серию на свою дату (начало дня или недели, в которой серия закончилась, и её длина).
 public record HabitResponse(
         UUID id,
         String title,
         HabitType type,
         Integer timesPerWeek,
+        String unit,
+        Long dailyTarget,
         String color,
         String icon,
         String imageUrl,
         boolean archived,
         int currentStreak,
         int bestStreak,
+        LocalDate streakLatestEnd,
+        int streakLatestLength,
         LocalDateTime createdAt
 ) {
 }
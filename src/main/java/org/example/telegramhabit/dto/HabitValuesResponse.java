@@ -0,0 +1,15 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+
+// Что делает: описывает суммы количественной привычки за день, неделю и месяц относительно даты.
+// Как делает: хранит единицу, дневную цель и по одной сумме с целью на каждый период.
+public record HabitValuesResponse(
+        LocalDate date,
+        String unit,
+        long dailyTarget,
+        PeriodValueResponse day,
+        PeriodValueResponse week,
+        PeriodValueResponse month
+) {
+}
@@ -0,0 +1,13 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Что делает: описывает компактные карты выполнений нескольких привычек за один период.
+// Как делает: хранит первый день периода, число дней и битовые строки по каждой привычке.
+public record HeatmapResponse(
+        LocalDate from,
+        int days,
+        List<HabitHeatmapResponse> habits
+) {
+}
@@ -0,0 +1,19 @@
+package org.example.telegramhabit.dto;
+
+import java.util.UUID;
+
+// Что делает: описывает одну строку лидерборда друзей.
+// Как делает: хранит место, профиль участника и три метрики, по которым идёт сортировка.
+public record LeaderboardEntryResponse(
+        int rank,
+        UUID userId,
+        String username,
+        String firstName,
+        String lastName,
+        String photoUrl,
+        boolean me,
+        int currentStreak,
+        int weeklyCompletionPercent,
+        long totalCompletions
+) {
+}
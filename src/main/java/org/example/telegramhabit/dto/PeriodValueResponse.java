@@ -0,0 +1,14 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+
+// Что делает: описывает сумму количественной привычки за один период.
+// Как делает: хранит начало периода, сумму, цель на период, число записей и процент выполнения цели.
+public record PeriodValueResponse(
+        LocalDate periodStart,
+        long total,
+        long target,
+        int entries,
+        int percent
+) {
+}
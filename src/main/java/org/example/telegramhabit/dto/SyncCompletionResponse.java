@@ -0,0 +1,15 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Что делает: описывает отметку выполнения в ответе синхронизации.
+// Как делает: в отличие от истории привычки, хранит id привычки, чтобы клиент мог разложить отметки по своей копии.
+public record SyncCompletionResponse(
+        UUID id,
+        UUID habitId,
+        LocalDate date,
+        LocalDateTime createdAt
+) {
+}
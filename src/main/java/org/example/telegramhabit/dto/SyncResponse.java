@@ -0,0 +1,17 @@
+package org.example.telegramhabit.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Что делает: описывает изменения данных пользователя с момента прошлой синхронизации.
+// Как делает: хранит номер изменения, с которым клиенту нужно прийти в следующий раз, признак полного снимка,
+// изменённые привычки и отметки и id удалённых записей.
+public record SyncResponse(
+        long seq,
+        boolean full,
+        List<HabitResponse> habits,
+        List<SyncCompletionResponse> completions,
+        List<UUID> deletedHabitIds,
+        List<UUID> deletedCompletionIds
+) {
+}
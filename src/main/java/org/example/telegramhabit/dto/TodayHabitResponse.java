@@ -0,0 +1,16 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Что делает: описывает привычку на главном экране «Сегодня».
+// Как делает: хранит привычку с сериями, отметку о выполнении сегодня, дни выполнения текущей недели и недельный прогресс.
+public record TodayHabitResponse(
+        HabitResponse habit,
+        boolean completedToday,
+        List<LocalDate> completedDatesThisWeek,
+        int completedThisWeek,
+        int targetThisWeek,
+        int completionPercentWeek
+) {
+}
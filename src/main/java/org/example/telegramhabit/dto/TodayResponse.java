@@ -0,0 +1,13 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Что делает: описывает всё содержимое главного экрана «Сегодня».
+// Как делает: хранит дату, на которую посчитан ответ, активные привычки и число непрочитанных уведомлений.
+public record TodayResponse(
+        LocalDate date,
+        List<TodayHabitResponse> habits,
+        long unreadNotifications
+) {
+}
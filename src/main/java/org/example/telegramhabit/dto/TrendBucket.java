@@ -0,0 +1,11 @@
+package org.example.telegramhabit.dto;
+
+// Что делает: перечисляет размеры корзин, на которые делится диапазон графика трендов.
+// Как делает: корзины выровнены по календарю: день, неделя с понедельника, месяц, квартал, год.
+public enum TrendBucket {
+    DAY,
+    WEEK,
+    MONTH,
+    QUARTER,
+    YEAR
+}
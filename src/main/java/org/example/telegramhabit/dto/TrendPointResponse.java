@@ -0,0 +1,14 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+
+// Что делает: описывает одну точку графика трендов.
+// Как делает: хранит границы корзины, число выполненных и возможных периодов привычки в ней и процент выполнения.
+public record TrendPointResponse(
+        LocalDate start,
+        LocalDate end,
+        int completed,
+        int possible,
+        int ratePercent
+) {
+}
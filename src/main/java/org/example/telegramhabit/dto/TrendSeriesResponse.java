@@ -0,0 +1,16 @@
+package org.example.telegramhabit.dto;
+
+import org.example.telegramhabit.entity.HabitType;
+
+import java.util.List;
+import java.util.UUID;
+
+// Что делает: описывает ряд точек графика трендов одной привычки.
+// Как делает: хранит привычку, её тип (периоды — дни или недели), итог за весь диапазон и точки по корзинам.
+public record TrendSeriesResponse(
+        UUID habitId,
+        HabitType type,
+        TrendPointResponse total,
+        List<TrendPointResponse> points
+) {
+}
@@ -0,0 +1,14 @@
+package org.example.telegramhabit.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Что делает: описывает ответ с трендами выполнения нескольких привычек за диапазон.
+// Как делает: хранит диапазон, размер корзины и по одному ряду на привычку.
+public record TrendsResponse(
+        LocalDate from,
+        LocalDate to,
+        TrendBucket bucket,
+        List<TrendSeriesResponse> series
+) {
+}
@@ -6,11 +6,18 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,13 +25,15 @@ import java.util.UUID;
 
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@ToString(exclude = "habit")
+@ToString(exclude = {"habit", "persisted"})
 @NoArgsConstructor
 @Entity
 @Table(name = "habit_completion")
 // Что делает: описывает ключевой компонент backend-слоя приложения.
-// Как делает: объявляет структуру и контракт, который используют остальные части системы.
-public class HabitCompletionEntity {
+// Как делает: объявляет структуру и контракт, который используют остальные части системы; реализует Persistable,
+// чтобы save/saveAll для новой строки с заранее заданным UUID делали persist и пакетный INSERT, а не merge
+// с отдельным SELECT на каждую строку.
+public class HabitCompletionEntity implements Persistable<UUID> {
 
     @Id
     @EqualsAndHashCode.Include
@@ -42,4 +51,27 @@ public class HabitCompletionEntity {
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    // Что делает: сообщает Spring Data, что строки ещё нет в БД.
+    // Как делает: новой считается сущность, которую не загружали из БД и ещё не сохраняли.
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    // Что делает: помечает сущность как уже существующую в БД.
+    // Как делает: JPA вызывает метод после загрузки и после сохранения строки.
+    void markPersisted() {
+        persisted = true;
+    }
 }
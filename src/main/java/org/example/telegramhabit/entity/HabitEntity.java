@@ -14,6 +14,7 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -45,6 +46,12 @@ public class HabitEntity {
     @Column(name = "times_per_week")
     private Integer timesPerWeek;
 
+    @Column(name = "unit")
+    private String unit;
+
+    @Column(name = "daily_target")
+    private Long dailyTarget;
+
     @Column(name = "color", nullable = false)
     private String color;
 
@@ -59,4 +66,22 @@ public class HabitEntity {
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    @Column(name = "change_seq", nullable = false)
+    private long changeSeq;
+
+    @Column(name = "streak_initialized", nullable = false)
+    private boolean streakInitialized;
+
+    @Column(name = "streak_best", nullable = false)
+    private int streakBest;
+
+    @Column(name = "streak_best_runs", nullable = false)
+    private int streakBestRuns;
+
+    @Column(name = "streak_latest_end")
+    private LocalDate streakLatestEnd;
+
+    @Column(name = "streak_latest_length", nullable = false)
+    private int streakLatestLength;
 }
@@ -0,0 +1,50 @@
+package org.example.telegramhabit.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(exclude = "habit")
+@NoArgsConstructor
+@Entity
+@Table(name = "habit_value_rollup")
+// Что делает: хранит сумму количеств привычки за день, неделю или месяц.
+// Как делает: одна строка на (привычка, период, начало периода); обновляется при каждой записи или удалении количества.
+public class HabitValueRollupEntity {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "habit_id", nullable = false)
+    private HabitEntity habit;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "period", nullable = false)
+    private RollupPeriod period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "entries", nullable = false)
+    private int entries;
+}
@@ -0,0 +1,9 @@
+package org.example.telegramhabit.entity;
+
+// Что делает: перечисляет периоды, по которым копятся суммы количественных привычек.
+// Как делает: строка периода хранится в habit_value_rollup.period, начало периода — в period_start.
+public enum RollupPeriod {
+    DAY,
+    WEEK,
+    MONTH
+}
@@ -7,8 +7,6 @@ import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -29,9 +27,11 @@ public class StoredImageEntity {
     @Column(name = "content_type", nullable = false)
     private String contentType;
 
-    @JdbcTypeCode(SqlTypes.VARBINARY)
-    @Column(name = "data", nullable = false)
-    private byte[] data;
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
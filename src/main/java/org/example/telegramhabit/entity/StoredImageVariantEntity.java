@@ -0,0 +1,50 @@
+package org.example.telegramhabit.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(exclude = "image")
+@NoArgsConstructor
+@Entity
+@Table(name = "stored_image_variant")
+// Что делает: описывает уменьшенную копию загруженной картинки.
+// Как делает: хранит размер по большей стороне и адрес содержимого варианта в ImageStore.
+public class StoredImageVariantEntity {
+
+    @Id
+    @EqualsAndHashCode.Include
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "image_id", nullable = false)
+    private StoredImageEntity image;
+
+    @Column(name = "size_px", nullable = false)
+    private int sizePx;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
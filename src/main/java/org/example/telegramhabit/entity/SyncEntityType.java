@@ -0,0 +1,8 @@
+package org.example.telegramhabit.entity;
+
+// Что делает: перечисляет виды сущностей, удаление которых передаётся клиентам через синхронизацию.
+// Как делает: значение хранится в sync_tombstone.entity_type.
+public enum SyncEntityType {
+    HABIT,
+    COMPLETION
+}
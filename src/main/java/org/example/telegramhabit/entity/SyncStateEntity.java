@@ -0,0 +1,37 @@
+package org.example.telegramhabit.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+@Entity
+@Table(name = "sync_state")
+// Что делает: хранит счётчик изменений пользователя для дельта-синхронизации.
+// Как делает: одна строка на пользователя с последним выданным номером изменения и границей,
+// ниже которой надгробия удалённых записей уже вычищены.
+public class SyncStateEntity {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    @Column(name = "tombstone_floor", nullable = false)
+    private long tombstoneFloor;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,47 @@
+package org.example.telegramhabit.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+@Entity
+@Table(name = "user_stats")
+// Что делает: хранит агрегированную статистику выполнений пользователя для лидерборда.
+// Как делает: одна строка на пользователя с общим числом выполнений, серией активных дней и счётчиком текущей недели,
+// которые обновляются на событиях выполнения, а не пересчитываются на каждый запрос.
+public class UserStatsEntity {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "total_completions", nullable = false)
+    private long totalCompletions;
+
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+
+    @Column(name = "last_active_date")
+    private LocalDate lastActiveDate;
+
+    @Column(name = "week_start")
+    private LocalDate weekStart;
+
+    @Column(name = "week_completions", nullable = false)
+    private int weekCompletions;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
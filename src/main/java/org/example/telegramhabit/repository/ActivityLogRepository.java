@@ -2,9 +2,11 @@ package org.example.telegramhabit.repository;
 
 import org.example.telegramhabit.entity.ActivityLogEntity;
 import org.example.telegramhabit.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import org.example.telegramhabit.entity.HabitEntity;
@@ -14,7 +16,17 @@ import org.example.telegramhabit.entity.HabitEntity;
 public interface ActivityLogRepository extends JpaRepository<ActivityLogEntity, UUID> {
     List<ActivityLogEntity> findTop100ByUserOrderByCreatedAtDesc(UserEntity user);
 
-    List<ActivityLogEntity> findTop100ByUserInOrderByCreatedAtDesc(Collection<UserEntity> users);
+    // Что делает: читает ленту пользователя: его собственные события и события друзей.
+    // Как делает: один запрос с полусоединением activity_log и friendship вместо IN-списка из друзей;
+    // автора подтягивает join fetch, чтобы при сборке ответа не было отдельных запросов на каждого пользователя.
+    @Query("""
+            select a from ActivityLogEntity a
+            join fetch a.user u
+            where u.id = :userId
+               or u.id in (select f.friend.id from FriendshipEntity f where f.user.id = :userId)
+            order by a.createdAt desc
+            """)
+    List<ActivityLogEntity> findFeed(@Param("userId") UUID userId, Pageable pageable);
 
     void deleteByHabit(HabitEntity habit);
 }
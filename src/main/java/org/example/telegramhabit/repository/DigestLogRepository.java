@@ -0,0 +1,21 @@
+package org.example.telegramhabit.repository;
+
+import org.example.telegramhabit.entity.DigestLogEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Что делает: даёт доступ к журналу отправленных недельных дайджестов.
+// Как делает: Spring Data репозиторий над digest_log.
+public interface DigestLogRepository extends JpaRepository<DigestLogEntity, UUID> {
+
+    // Что делает: читает, кому из пачки пользователей дайджест за неделю уже отправлен.
+    // Как делает: выбирает только user_id по уникальному ключу (user_id, week_start).
+    @Query("select d.userId from DigestLogEntity d where d.weekStart = :weekStart and d.userId in :userIds")
+    List<UUID> findUserIdsSent(@Param("weekStart") LocalDate weekStart, @Param("userIds") Collection<UUID> userIds);
+}
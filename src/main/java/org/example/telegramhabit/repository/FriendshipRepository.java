@@ -3,7 +3,10 @@ package org.example.telegramhabit.repository;
 import org.example.telegramhabit.entity.FriendshipEntity;
 import org.example.telegramhabit.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +19,26 @@ public interface FriendshipRepository extends JpaRepository<FriendshipEntity, UU
     Optional<FriendshipEntity> findByUserAndFriend(UserEntity user, UserEntity friend);
 
     void deleteByUserAndFriend(UserEntity user, UserEntity friend);
+
+    // Что делает: проверяет, есть ли ребро дружбы между двумя пользователями.
+    // Как делает: exists-запрос по уникальному индексу (user_id, friend_id).
+    boolean existsByUserIdAndFriendId(UUID userId, UUID friendId);
+
+    // Что делает: читает id всех друзей пользователя.
+    // Как делает: выбирает только friend_id, без загрузки сущностей пользователей.
+    @Query("select f.friend.id from FriendshipEntity f where f.user.id = :userId")
+    List<UUID> findFriendIds(@Param("userId") UUID userId);
+
+    // Что делает: читает пары (пользователь, друг) для пачки пользователей.
+    // Как делает: выбирает только два id по индексу user_id, без загрузки сущностей.
+    @Query("select f.user.id as userId, f.friend.id as friendId from FriendshipEntity f where f.user.id in :userIds")
+    List<FriendPair> findPairsByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    // Что делает: описывает одно ребро дружбы.
+    // Как делает: проекция Spring Data с id пользователя и id друга.
+    interface FriendPair {
+        UUID getUserId();
+
+        UUID getFriendId();
+    }
 }
@@ -2,9 +2,13 @@ package org.example.telegramhabit.repository;
 
 import org.example.telegramhabit.entity.HabitCompletionEntity;
 import org.example.telegramhabit.entity.HabitEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,7 +20,126 @@ public interface HabitCompletionRepository extends JpaRepository<HabitCompletion
 
     List<HabitCompletionEntity> findByHabitAndCompletedTrueOrderByDateDesc(HabitEntity habit);
 
+    // Что делает: читает страницу отметок привычки в диапазоне дат от новых к старым.
+    // Как делает: keyset-пагинация по дате через верхнюю границу диапазона, идёт по индексу (habit_id, date) без offset.
+    List<HabitCompletionEntity> findByHabitAndCompletedTrueAndDateBetweenOrderByDateDesc(
+            HabitEntity habit,
+            LocalDate from,
+            LocalDate to,
+            Pageable pageable
+    );
+
     List<HabitCompletionEntity> findByHabitAndDateBetweenAndCompletedTrue(HabitEntity habit, LocalDate from, LocalDate to);
 
     void deleteByHabit(HabitEntity habit);
+
+    List<HabitCompletionEntity> findByHabitInAndDateIn(Collection<HabitEntity> habits, Collection<LocalDate> dates);
+
+    // Что делает: читает даты выполнения сразу для нескольких привычек.
+    // Как делает: один запрос только по колонкам habit_id и date, от новых дат к старым.
+    @Query("""
+            select c.habit.id as habitId, c.date as date
+            from HabitCompletionEntity c
+            where c.habit in :habits and c.completed = true
+            order by c.date desc
+            """)
+    List<CompletionDateProjection> findCompletedDates(@Param("habits") Collection<HabitEntity> habits);
+
+    // Что делает: читает даты выполнения нескольких привычек за период.
+    // Как делает: выбирает только habit_id и date, поэтому запрос закрывается частичным индексом по (habit_id, date)
+    // без чтения строк таблицы.
+    @Query("""
+            select c.habit.id as habitId, c.date as date
+            from HabitCompletionEntity c
+            where c.habit.id in :habitIds and c.completed = true and c.date between :from and :to
+            """)
+    List<CompletionDateProjection> findCompletedDatesBetween(
+            @Param("habitIds") Collection<UUID> habitIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Что делает: считает выполнения за период по каждой привычке пачки пользователей.
+    // Как делает: один агрегирующий запрос с group by по привычке.
+    @Query("""
+            select c.habit.id as id, count(c) as count
+            from HabitCompletionEntity c
+            where c.habit.user.id in :userIds and c.completed = true and c.date between :from and :to
+            group by c.habit.id
+            """)
+    List<IdCount> countCompletedByHabitBetween(
+            @Param("userIds") Collection<UUID> userIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Что делает: считает выполнения за период по каждому пользователю из набора.
+    // Как делает: один агрегирующий запрос с group by по владельцу привычки.
+    @Query("""
+            select c.habit.user.id as id, count(c) as count
+            from HabitCompletionEntity c
+            where c.habit.user.id in :userIds and c.completed = true and c.date between :from and :to
+            group by c.habit.user.id
+            """)
+    List<IdCount> countCompletedByUserBetween(
+            @Param("userIds") Collection<UUID> userIds,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Что делает: считает все выполнения пользователя по всем его привычкам.
+    // Как делает: агрегирующий запрос через habit.user без загрузки строк.
+    @Query("select count(c) from HabitCompletionEntity c where c.habit.user.id = :userId and c.completed = true")
+    long countCompletedByUserId(@Param("userId") UUID userId);
+
+    // Что делает: считает выполнения пользователя за период.
+    // Как делает: агрегирующий запрос с границами дат включительно.
+    @Query("""
+            select count(c) from HabitCompletionEntity c
+            where c.habit.user.id = :userId and c.completed = true and c.date between :from and :to
+            """)
+    long countCompletedByUserIdAndDateBetween(@Param("userId") UUID userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Что делает: читает дни, в которые пользователь выполнил хотя бы одну привычку.
+    // Как делает: distinct по дате выполнения, от новых к старым.
+    @Query("select distinct c.date from HabitCompletionEntity c where c.habit.user.id = :userId and c.completed = true order by c.date desc")
+    List<LocalDate> findActiveDatesByUserId(@Param("userId") UUID userId);
+
+    // Что делает: читает отметки выполнения пользователя, изменённые после номера изменения.
+    // Как делает: выбирает строки по всем привычкам пользователя с change_seq больше заданного.
+    @Query("""
+            select c from HabitCompletionEntity c
+            where c.habit.user.id = :userId and c.completed = true and c.changeSeq > :since
+            order by c.date desc
+            """)
+    List<HabitCompletionEntity> findChangedSince(@Param("userId") UUID userId, @Param("since") long since);
+
+    // Что делает: читает даты выполнения привычки в диапазоне.
+    // Как делает: выбирает только колонку date по индексу (habit_id, date), границы включительно.
+    @Query("""
+            select c.date from HabitCompletionEntity c
+            where c.habit = :habit and c.completed = true and c.date between :from and :to
+            """)
+    List<LocalDate> findCompletedDatesBetween(@Param("habit") HabitEntity habit, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Что делает: находит последнюю дату выполнения привычки раньше заданной.
+    // Как делает: max(date) по индексу (habit_id, date); null, если выполнений раньше нет.
+    @Query("select max(c.date) from HabitCompletionEntity c where c.habit = :habit and c.completed = true and c.date < :before")
+    LocalDate findLatestCompletedDateBefore(@Param("habit") HabitEntity habit, @Param("before") LocalDate before);
+
+    // Что делает: описывает одну дату выполнения привычки.
+    // Как делает: проекция Spring Data на колонки habitId и date.
+    interface CompletionDateProjection {
+        UUID getHabitId();
+
+        LocalDate getDate();
+    }
+
+    // Что делает: описывает число строк, сгруппированных по id.
+    // Как делает: проекция Spring Data с id и количеством.
+    interface IdCount {
+        UUID getId();
+
+        long getCount();
+    }
 }
@@ -0,0 +1,24 @@
+package org.example.telegramhabit.repository;
+
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitEntryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+import java.util.UUID;
+
+// Что делает: даёт доступ к записям количеств количественных привычек.
+// Как делает: Spring Data репозиторий над habit_entry.
+public interface HabitEntryRepository extends JpaRepository<HabitEntryEntity, UUID> {
+
+    Optional<HabitEntryEntity> findByIdAndHabit(UUID id, HabitEntity habit);
+
+    // Что делает: удаляет все записи количеств привычки.
+    // Как делает: один bulk delete без загрузки строк, у активных пользователей записей может быть много.
+    @Modifying
+    @Query("delete from HabitEntryEntity e where e.habit = :habit")
+    void deleteByHabit(@Param("habit") HabitEntity habit);
+}
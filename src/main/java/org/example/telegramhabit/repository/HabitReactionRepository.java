@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,6 +29,20 @@ public interface HabitReactionRepository extends JpaRepository<HabitReactionEnti
             """)
     List<ReactionCountProjection> countByHabit(@Param("habit") HabitEntity habit);
 
+    // Что делает: читает реакции пользователя сразу на несколько привычек.
+    // Как делает: один запрос с IN по id привычек.
+    List<HabitReactionEntity> findByHabitIdInAndReactor(Collection<UUID> habitIds, UserEntity reactor);
+
+    // Что делает: считает реакции по эмодзи сразу для нескольких привычек.
+    // Как делает: group by по привычке и эмодзи в одном запросе.
+    @Query("""
+            select r.habit.id as habitId, r.emoji as emoji, count(r) as count
+            from HabitReactionEntity r
+            where r.habit.id in :habitIds
+            group by r.habit.id, r.emoji
+            """)
+    List<HabitReactionCountByHabitProjection> countByHabitIds(@Param("habitIds") Collection<UUID> habitIds);
+
     // Что делает: описывает ключевой компонент backend-слоя приложения.
     // Как делает: объявляет структуру и контракт, который используют остальные части системы.
     interface ReactionCountProjection {
@@ -35,4 +50,14 @@ public interface HabitReactionRepository extends JpaRepository<HabitReactionEnti
 
         long getCount();
     }
+
+    // Что делает: описывает число реакций одного эмодзи на одну привычку.
+    // Как делает: проекция Spring Data на колонки habitId, emoji и count.
+    interface HabitReactionCountByHabitProjection {
+        UUID getHabitId();
+
+        String getEmoji();
+
+        long getCount();
+    }
 }
@@ -1,9 +1,14 @@
 package org.example.telegramhabit.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.telegramhabit.entity.HabitEntity;
 import org.example.telegramhabit.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,4 +20,52 @@ public interface HabitRepository extends JpaRepository<HabitEntity, UUID> {
     List<HabitEntity> findByUserAndArchivedFalseOrderByCreatedAtDesc(UserEntity user);
 
     Optional<HabitEntity> findByIdAndUser(UUID id, UserEntity user);
+
+    List<HabitEntity> findByUserAndIdIn(UserEntity user, Collection<UUID> ids);
+
+    // Что делает: читает активные привычки пачки пользователей.
+    // Как делает: один запрос по IN-списку user_id вместо запроса на каждого пользователя.
+    @Query("select h from HabitEntity h where h.user.id in :userIds and h.archived = false")
+    List<HabitEntity> findActiveByUserIds(@Param("userIds") Collection<UUID> userIds);
+
+    // Что делает: читает привычку пользователя под блокировкой строки.
+    // Как делает: SELECT ... FOR UPDATE, чтобы изменения отметок одной привычки шли последовательно
+    // и сохранённое состояние серии не терялось при параллельных запросах.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HabitEntity h where h.id = :id and h.user = :user")
+    Optional<HabitEntity> findByIdAndUserForUpdate(@Param("id") UUID id, @Param("user") UserEntity user);
+
+    // Что делает: читает несколько привычек пользователя под блокировкой строк.
+    // Как делает: SELECT ... FOR UPDATE в порядке id, чтобы параллельные пакеты не блокировали друг друга крест-накрест.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from HabitEntity h where h.user = :user and h.id in :ids order by h.id")
+    List<HabitEntity> findByUserAndIdInForUpdate(@Param("user") UserEntity user, @Param("ids") Collection<UUID> ids);
+
+    List<HabitEntity> findByUserAndChangeSeqGreaterThanOrderByCreatedAtDesc(UserEntity user, long changeSeq);
+
+    // Что делает: читает картинки привычек, которые лежат в хранилище приложения.
+    // Как делает: выбирает только image_url с заданным префиксом, без загрузки самих привычек.
+    @Query("select h.imageUrl from HabitEntity h where h.imageUrl like concat(:prefix, '%')")
+    List<String> findImageUrlsStartingWith(@Param("prefix") String prefix);
+
+    // Что делает: считает недельную цель по активным привычкам пользователя и его друзей.
+    // Как делает: group by по владельцу; ежедневная привычка даёт 7 выполнений в неделю, еженедельная — times_per_week.
+    @Query("""
+            select h.user.id as userId,
+                   sum(case when h.type = org.example.telegramhabit.entity.HabitType.DAILY then 7 else coalesce(h.timesPerWeek, 0) end) as target
+            from HabitEntity h
+            where h.archived = false
+              and (h.user.id = :userId
+                   or h.user.id in (select f.friend.id from FriendshipEntity f where f.user.id = :userId))
+            group by h.user.id
+            """)
+    List<WeeklyTarget> findWeeklyTargetsForFriendCircle(@Param("userId") UUID userId);
+
+    // Что делает: описывает недельную цель одного пользователя.
+    // Как делает: проекция Spring Data на колонки userId и target.
+    interface WeeklyTarget {
+        UUID getUserId();
+
+        Long getTarget();
+    }
 }
@@ -0,0 +1,28 @@
+package org.example.telegramhabit.repository;
+
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitValueRollupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Что делает: даёт доступ к суммам количественных привычек по периодам.
+// Как делает: Spring Data репозиторий над habit_value_rollup.
+public interface HabitValueRollupRepository extends JpaRepository<HabitValueRollupEntity, UUID> {
+
+    // Что делает: читает строки сумм привычки, начинающиеся в любой из заданных дат.
+    // Как делает: по уникальному ключу (habit_id, period, period_start); день, неделя и месяц даты читаются одним запросом.
+    List<HabitValueRollupEntity> findByHabitAndPeriodStartIn(HabitEntity habit, Collection<LocalDate> periodStarts);
+
+    // Что делает: удаляет все суммы привычки.
+    // Как делает: один bulk delete без загрузки строк.
+    @Modifying
+    @Query("delete from HabitValueRollupEntity r where r.habit = :habit")
+    void deleteByHabit(@Param("habit") HabitEntity habit);
+}
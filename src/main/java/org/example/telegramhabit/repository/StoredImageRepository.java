@@ -1,11 +1,25 @@
 package org.example.telegramhabit.repository;
 
 import org.example.telegramhabit.entity.StoredImageEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 // Что делает: описывает ключевой компонент backend-слоя приложения.
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public interface StoredImageRepository extends JpaRepository<StoredImageEntity, UUID> {
+
+    // Что делает: читает очередную страницу id картинок, созданных раньше заданного момента.
+    // Как делает: keyset-пагинация по id (id > after), чтобы проход по всей таблице не деградировал на больших offset.
+    @Query("select i.id from StoredImageEntity i where i.createdAt < :cutoff and i.id > :after order by i.id")
+    List<UUID> findIdsCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("after") UUID after, Pageable pageable);
+
+    // Что делает: проверяет, ссылается ли ещё какая-нибудь картинка на содержимое с этим хэшем.
+    // Как делает: exists-запрос по индексу content_hash.
+    boolean existsByContentHash(String contentHash);
 }
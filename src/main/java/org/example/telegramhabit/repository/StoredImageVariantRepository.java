@@ -0,0 +1,27 @@
+package org.example.telegramhabit.repository;
+
+import org.example.telegramhabit.entity.StoredImageEntity;
+import org.example.telegramhabit.entity.StoredImageVariantEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Что делает: описывает ключевой компонент backend-слоя приложения.
+// Как делает: объявляет структуру и контракт, который используют остальные части системы.
+public interface StoredImageVariantRepository extends JpaRepository<StoredImageVariantEntity, UUID> {
+
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: ищет самый маленький вариант, который не меньше запрошенного размера.
+    Optional<StoredImageVariantEntity> findFirstByImageAndSizePxGreaterThanEqualOrderBySizePxAsc(StoredImageEntity image, int sizePx);
+
+    // Что делает: читает все варианты для набора картинок.
+    // Как делает: один запрос с IN по картинкам.
+    List<StoredImageVariantEntity> findByImageIn(Collection<StoredImageEntity> images);
+
+    // Что делает: проверяет, ссылается ли ещё какой-нибудь вариант на содержимое с этим хэшем.
+    // Как делает: exists-запрос по индексу content_hash.
+    boolean existsByContentHash(String contentHash);
+}
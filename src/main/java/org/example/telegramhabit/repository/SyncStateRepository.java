@@ -0,0 +1,47 @@
+package org.example.telegramhabit.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.telegramhabit.entity.SyncStateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Что делает: описывает ключевой компонент backend-слоя приложения.
+// Как делает: объявляет структуру и контракт, который используют остальные части системы.
+public interface SyncStateRepository extends JpaRepository<SyncStateEntity, UUID> {
+
+    // Что делает: читает счётчик изменений пользователя под блокировкой.
+    // Как делает: SELECT ... FOR UPDATE держит строку до коммита, поэтому номера изменений идут в порядке коммитов.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from SyncStateEntity s where s.userId = :userId")
+    Optional<SyncStateEntity> findForUpdate(@Param("userId") UUID userId);
+
+    // Что делает: создаёт счётчик изменений пользователя, если его ещё нет.
+    // Как делает: INSERT ... ON CONFLICT DO NOTHING (единственный уникальный ключ — user_id), поэтому параллельные
+    // первые изменения нового пользователя не падают на первичном ключе, а дальше ждут друг друга на FOR UPDATE.
+    @Modifying
+    @Query(value = """
+            insert into sync_state (user_id, last_seq, tombstone_floor, updated_at)
+            values (:userId, 0, 0, :now)
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Что делает: поднимает границу вычищенных надгробий перед их удалением.
+    // Как делает: для каждого пользователя со старыми надгробиями записывает наибольший номер изменения среди них.
+    @Modifying
+    @Query("""
+            update SyncStateEntity s
+            set s.tombstoneFloor = (
+                select max(t.seq) from SyncTombstoneEntity t where t.userId = s.userId and t.createdAt < :cutoff
+            )
+            where exists (select t.id from SyncTombstoneEntity t where t.userId = s.userId and t.createdAt < :cutoff)
+            """)
+    int raiseTombstoneFloors(@Param("cutoff") LocalDateTime cutoff);
+}
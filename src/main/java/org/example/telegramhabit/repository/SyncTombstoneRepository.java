@@ -0,0 +1,24 @@
+package org.example.telegramhabit.repository;
+
+import org.example.telegramhabit.entity.SyncTombstoneEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Что делает: описывает ключевой компонент backend-слоя приложения.
+// Как делает: объявляет структуру и контракт, который используют остальные части системы.
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstoneEntity, UUID> {
+
+    List<SyncTombstoneEntity> findByUserIdAndSeqGreaterThan(UUID userId, long seq);
+
+    // Что делает: удаляет надгробия старше срока хранения.
+    // Как делает: один bulk-delete по created_at.
+    @Modifying
+    @Query("delete from SyncTombstoneEntity t where t.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
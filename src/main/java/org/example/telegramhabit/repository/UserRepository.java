@@ -1,8 +1,13 @@
 package org.example.telegramhabit.repository;
 
 import org.example.telegramhabit.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -10,4 +15,57 @@ import java.util.UUID;
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public interface UserRepository extends JpaRepository<UserEntity, UUID> {
     Optional<UserEntity> findByTelegramId(Long telegramId);
+
+    // Что делает: читает аватары пользователей, которые лежат в хранилище приложения.
+    // Как делает: выбирает только photo_url с заданным префиксом, без загрузки самих пользователей.
+    @Query("select u.photoUrl from UserEntity u where u.photoUrl like concat(:prefix, '%')")
+    List<String> findPhotoUrlsStartingWith(@Param("prefix") String prefix);
+
+    // Что делает: читает очередную страницу id пользователей, которым можно написать в Telegram.
+    // Как делает: keyset-пагинация по id (id > after), чтобы проход по всем пользователям не деградировал на больших offset.
+    @Query("select u.id from UserEntity u where u.telegramId is not null and u.id > :after order by u.id")
+    List<UUID> findTelegramUserIdsAfter(@Param("after") UUID after, Pageable pageable);
+
+    // Что делает: читает пользователя вместе со всеми его друзьями.
+    // Как делает: один запрос с полусоединением по friendship, без IN-списка из id друзей.
+    @Query("""
+            select u from UserEntity u
+            where u.id = :userId
+               or u.id in (select f.friend.id from FriendshipEntity f where f.user.id = :userId)
+            """)
+    List<UserEntity> findFriendCircle(@Param("userId") UUID userId);
+
+    // Что делает: создаёт пользователя или обновляет его профиль из Telegram одним запросом.
+    // Как делает: INSERT ... ON CONFLICT (telegram_id) DO UPDATE, который пишет строку только если поля реально изменились;
+    // загруженный через /uploads/ аватар не перетирается фото из Telegram. Возвращает id, если строка была записана.
+    @Query(value = """
+            insert into app_user (id, telegram_id, username, first_name, last_name, photo_url, language, created_at)
+            values (:id, :telegramId, :username, :firstName, :lastName, :photoUrl, :language, :createdAt)
+            on conflict (telegram_id) do update set
+                username = excluded.username,
+                first_name = excluded.first_name,
+                last_name = excluded.last_name,
+                photo_url = case
+                    when excluded.photo_url is null or excluded.photo_url = '' then app_user.photo_url
+                    when app_user.photo_url like '/uploads/%' then app_user.photo_url
+                    else excluded.photo_url
+                end,
+                language = excluded.language
+            where (app_user.username, app_user.first_name, app_user.last_name, app_user.language)
+                      is distinct from (excluded.username, excluded.first_name, excluded.last_name, excluded.language)
+               or (excluded.photo_url is not null and excluded.photo_url <> ''
+                   and app_user.photo_url is distinct from excluded.photo_url
+                   and coalesce(app_user.photo_url, '') not like '/uploads/%')
+            returning id
+            """, nativeQuery = true)
+    Optional<UUID> upsertTelegramProfile(
+            @Param("id") UUID id,
+            @Param("telegramId") Long telegramId,
+            @Param("username") String username,
+            @Param("firstName") String firstName,
+            @Param("lastName") String lastName,
+            @Param("photoUrl") String photoUrl,
+            @Param("language") String language,
+            @Param("createdAt") LocalDateTime createdAt
+    );
 }
@@ -0,0 +1,45 @@
+package org.example.telegramhabit.repository;
+
+import jakarta.persistence.LockModeType;
+import org.example.telegramhabit.entity.UserStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Что делает: описывает ключевой компонент backend-слоя приложения.
+// Как делает: объявляет структуру и контракт, который используют остальные части системы.
+public interface UserStatsRepository extends JpaRepository<UserStatsEntity, UUID> {
+
+    // Что делает: читает строку статистики пользователя под блокировкой.
+    // Как делает: SELECT ... FOR UPDATE, чтобы параллельные выполнения не теряли инкременты.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserStatsEntity s where s.userId = :userId")
+    Optional<UserStatsEntity> findForUpdate(@Param("userId") UUID userId);
+
+    // Что делает: создаёт пустую строку статистики, если её ещё нет.
+    // Как делает: INSERT ... ON CONFLICT DO NOTHING (единственный уникальный ключ — user_id), поэтому параллельные
+    // первые выполнения не падают на первичном ключе; возвращает 1, если строка создана этим вызовом.
+    @Modifying
+    @Query(value = """
+            insert into user_stats (user_id, total_completions, current_streak, week_completions, updated_at)
+            values (:userId, 0, 0, 0, :now)
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    // Что делает: читает статистику пользователя и всех его друзей.
+    // Как делает: один запрос с полусоединением по friendship, без IN-списка из id друзей.
+    @Query("""
+            select s from UserStatsEntity s
+            where s.userId = :userId
+               or s.userId in (select f.friend.id from FriendshipEntity f where f.user.id = :userId)
+            """)
+    List<UserStatsEntity> findFriendCircle(@Param("userId") UUID userId);
+}
@@ -0,0 +1,295 @@
+package org.example.telegramhabit.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.service.IdempotencyStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+// Что делает: делает мутирующие запросы с заголовком Idempotency-Key безопасными для повтора.
+// Как делает: первый запрос с ключом выполняет и запоминает его успешный ответ, повтор отдаёт из IdempotencyStore
+// без повторного выполнения; стоит в цепочке Spring Security после JWT-фильтра, чтобы ключи были привязаны к пользователю.
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final Set<String> MUTATING_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    // Что делает: решает, нужно ли обрабатывать запрос.
+    // Как делает: пропускает запросы без заголовка Idempotency-Key и немутирующие методы.
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !MUTATING_METHODS.contains(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    // Что делает: выполняет запрос не больше одного раза на ключ.
+    // Как делает: захватывает ключ; если он уже занят тем же запросом — отдаёт сохранённый ответ или 409, пока первый
+    // ещё выполняется; если ключ использован для другого запроса (метод, путь или тело) — 422; иначе выполняет запрос,
+    // по пути считая SHA-256 тела, и сохраняет 2xx-ответ вместе с этим хэшем.
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        UUID userId = currentUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String fingerprint = request.getMethod() + " " + request.getRequestURI()
+                + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+
+        Optional<IdempotencyStore.Entry> existing = idempotencyStore.claim(userId, key, fingerprint);
+        if (existing.isPresent()) {
+            replay(request, response, existing.get(), fingerprint);
+            return;
+        }
+
+        DigestingRequestWrapper digestingRequest = hashesBody(request) ? new DigestingRequestWrapper(request) : null;
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(digestingRequest == null ? request : digestingRequest, wrapper);
+            int status = wrapper.getStatus();
+            if (status >= 200 && status < 300) {
+                idempotencyStore.complete(userId, key, fingerprint,
+                        digestingRequest == null ? null : digestingRequest.finishDigest(),
+                        new IdempotencyStore.StoredResponse(status, wrapper.getContentType(), wrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.release(userId, key);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    // Что делает: отвечает на повтор уже известного ключа.
+    // Как делает: сверяет отпечаток запроса и хэш тела повтора с сохранёнными (если тело хэшировалось) и отдаёт
+    // сохранённые статус, тип и тело с заголовком Idempotent-Replayed.
+    private void replay(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            IdempotencyStore.Entry entry,
+            String fingerprint
+    ) throws IOException {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+            return;
+        }
+        IdempotencyStore.StoredResponse stored = entry.response();
+        if (stored == null) {
+            writeError(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+            return;
+        }
+        if (entry.bodyHash() != null && !entry.bodyHash().equals(DigestingRequestWrapper.hash(request.getInputStream()))) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+            return;
+        }
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body().length > 0) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    // Что делает: решает, входит ли тело запроса в отпечаток.
+    // Как делает: multipart и form-urlencoded контейнер разбирает в обход обёртки потока, а граница multipart
+    // у каждого повтора своя, поэтому для них сверяются только метод и путь.
+    private boolean hashesBody(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return true;
+        }
+        String normalized = contentType.toLowerCase(Locale.ROOT);
+        return !normalized.startsWith("multipart/") && !normalized.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    // Что делает: пишет ошибку в формате остальных ответов API.
+    // Как делает: собирает тело с полями timestamp, status и error, как ApiExceptionHandler.
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    // Что делает: возвращает id аутентифицированного пользователя.
+    // Как делает: читает principal из SecurityContext; для анонимного запроса возвращает null.
+    private UUID currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UUID userId ? userId : null;
+    }
+
+    // Что делает: пропускает тело запроса дальше по цепочке, считая его SHA-256.
+    // Как делает: оборачивает входной поток так, что каждый прочитанный байт попадает в MessageDigest; тело не
+    // буферизуется, поэтому потоковая загрузка картинок остаётся потоковой.
+    private static final class DigestingRequestWrapper extends HttpServletRequestWrapper {
+
+        private final MessageDigest digest = sha256();
+        private ServletInputStream stream;
+        private BufferedReader reader;
+
+        // Что делает: оборачивает исходный запрос.
+        // Как делает: сохраняет запрос; поток создаётся при первом чтении.
+        DigestingRequestWrapper(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        // Что делает: отдаёт поток тела, который заодно считает хэш.
+        // Как делает: при первом вызове оборачивает исходный поток и дальше возвращает ту же обёртку.
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new DigestingInputStream(super.getInputStream(), digest);
+            }
+            return stream;
+        }
+
+        @Override
+        // Что делает: отдаёт тело как текст, по-прежнему считая хэш байтов.
+        // Как делает: читает символы из того же хэширующего потока в кодировке запроса.
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                reader = new BufferedReader(new InputStreamReader(getInputStream(),
+                        encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+            }
+            return reader;
+        }
+
+        // Что делает: возвращает хэш всего тела запроса.
+        // Как делает: дочитывает то, что обработчик не прочитал, и отдаёт SHA-256 в hex.
+        String finishDigest() throws IOException {
+            getInputStream().transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        // Что делает: считает SHA-256 тела повторного запроса.
+        // Как делает: читает поток до конца, не сохраняя байты.
+        static String hash(InputStream in) throws IOException {
+            MessageDigest digest = sha256();
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                digestIn.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+
+        // Что делает: создаёт объект подсчёта SHA-256.
+        // Как делает: берёт MessageDigest из JCA; алгоритм обязателен для любой JVM.
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+    }
+
+    // Что делает: описывает поток тела запроса, который обновляет хэш при чтении.
+    // Как делает: делегирует чтение исходному ServletInputStream и добавляет прочитанные байты в MessageDigest.
+    private static final class DigestingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private final MessageDigest digest;
+
+        // Что делает: создаёт поток поверх исходного.
+        // Как делает: запоминает исходный поток и объект хэша.
+        DigestingInputStream(ServletInputStream delegate, MessageDigest digest) {
+            this.delegate = delegate;
+            this.digest = digest;
+        }
+
+        @Override
+        // Что делает: читает один байт.
+        // Как делает: читает из исходного потока и добавляет байт в хэш.
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value >= 0) {
+                digest.update((byte) value);
+            }
+            return value;
+        }
+
+        @Override
+        // Что делает: читает порцию байт.
+        // Как делает: читает из исходного потока и добавляет прочитанное в хэш.
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, length);
+            if (read > 0) {
+                digest.update(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        // Что делает: сообщает, дочитан ли поток.
+        // Как делает: делегирует исходному потоку.
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        // Что делает: сообщает, можно ли читать без блокировки.
+        // Как делает: делегирует исходному потоку.
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        // Что делает: регистрирует слушатель неблокирующего чтения.
+        // Как делает: делегирует исходному потоку.
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package org.example.telegramhabit.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -10,8 +14,11 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.UUID;
 
@@ -26,11 +33,23 @@ public class JwtService {
     @Value("${app.security.jwt-expiration-minutes}")
     private long expirationMinutes;
 
+    @Value("${app.security.jwt-cache-max-size:10000}")
+    private long cacheMaxSize;
+
     private SecretKey secretKey;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verifiedTokens;
 
     @PostConstruct
     void init() {
         this.secretKey = Keys.hmacShaKeyFor(resolveSecret(secret));
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new VerifiedTokenExpiry())
+                .build();
     }
 
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
@@ -46,14 +65,33 @@ public class JwtService {
     }
 
     // Что делает: проверяет входные данные и извлекает нужные значения.
-    // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
+    // Как делает: ищет уже проверенный токен по его SHA-256, иначе проверяет подпись и кладёт результат в кэш до истечения токена.
     public UUID extractUserId(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        return UUID.fromString(claims.getSubject());
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.userId();
+            }
+            verifiedTokens.invalidate(digest);
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        UUID userId = UUID.fromString(claims.getSubject());
+        long expiresAtMillis = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        verifiedTokens.put(digest, new VerifiedToken(userId, expiresAtMillis));
+        return userId;
+    }
+
+    // Что делает: считает ключ кэша для токена.
+    // Как делает: хэширует токен SHA-256, чтобы не держать сами токены в памяти.
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
     }
 
     // Что делает: преобразует или обновляет данные по правилам сервиса.
@@ -68,4 +106,36 @@ public class JwtService {
         }
         return value.getBytes(StandardCharsets.UTF_8);
     }
+
+    // Что делает: описывает результат успешной проверки токена.
+    // Как делает: хранит пользователя и момент истечения токена в миллисекундах.
+    private record VerifiedToken(UUID userId, long expiresAtMillis) {
+    }
+
+    // Что делает: задаёт время жизни записи кэша для каждого токена отдельно.
+    // Как делает: выселяет запись ровно в момент истечения самого JWT.
+    private static final class VerifiedTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        // Что делает: возвращает время жизни новой записи кэша.
+        // Как делает: считает наносекунды до истечения JWT от текущего времени, не меньше нуля и без переполнения.
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return Math.max(0L, Math.min(remainingMillis, Long.MAX_VALUE / 1_000_000L)) * 1_000_000L;
+        }
+
+        @Override
+        // Что делает: возвращает время жизни записи после её замены.
+        // Как делает: заново считает срок по истечению нового токена, как для новой записи.
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        // Что делает: возвращает время жизни записи после чтения.
+        // Как делает: оставляет текущий срок — чтение не продлевает жизнь токена.
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -105,7 +105,7 @@ public class ActivityReactionService {
         if (activity.getUser().getId().equals(currentUser.getId())) {
             return activity;
         }
-        friendService.requireFriend(currentUser, activity.getUser().getId());
+        friendService.requireFriendship(currentUser, activity.getUser().getId());
         return activity;
     }
 
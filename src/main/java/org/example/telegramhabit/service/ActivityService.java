@@ -8,12 +8,12 @@ import org.example.telegramhabit.entity.ActivityType;
 import org.example.telegramhabit.entity.HabitEntity;
 import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.repository.ActivityLogRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -25,8 +25,9 @@ import java.util.UUID;
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public class ActivityService {
 
+    private static final int FEED_SIZE = 100;
+
     private final ActivityLogRepository activityLogRepository;
-    private final FriendService friendService;
     private final ActivityReactionService activityReactionService;
 
     @Transactional
@@ -45,13 +46,9 @@ public class ActivityService {
 
     @Transactional(readOnly = true)
     // Что делает: читает и возвращает данные для API или внутренней логики.
-    // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
+    // Как делает: одним запросом читает последние события пользователя и его друзей и маппит их в ответ.
     public List<ActivityResponse> list(UserEntity user) {
-        List<UserEntity> feedUsers = new ArrayList<>();
-        feedUsers.add(user);
-        feedUsers.addAll(friendService.friendsOf(user));
-
-        List<ActivityLogEntity> logs = activityLogRepository.findTop100ByUserInOrderByCreatedAtDesc(feedUsers);
+        List<ActivityLogEntity> logs = activityLogRepository.findFeed(user.getId(), PageRequest.of(0, FEED_SIZE));
         List<UUID> activityIds = logs.stream().map(ActivityLogEntity::getId).toList();
         Map<UUID, List<ActivityReactionSummaryResponse>> reactionsByActivity = activityReactionService.summary(activityIds, user);
 
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -20,6 +21,7 @@ public class AuthService {
     private final TelegramInitDataValidator initDataValidator;
     private final UserRepository userRepository;
     private final JwtService jwtService;
+    private final UserCache userCache;
 
     @Transactional
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
@@ -44,7 +46,7 @@ public class AuthService {
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: если профиль не изменился, сразу выдаёт токен без записи; иначе делает атомарный upsert по telegram_id.
     private AuthResponse upsertAndIssueToken(
             Long telegramId,
             String firstName,
@@ -53,27 +55,57 @@ public class AuthService {
             String photoUrl,
             String language
     ) {
-        UserEntity user = userRepository.findByTelegramId(telegramId)
-                .orElseGet(() -> {
-                    UserEntity newUser = new UserEntity();
-                    newUser.setId(UUID.randomUUID());
-                    newUser.setTelegramId(telegramId);
-                    newUser.setCreatedAt(LocalDateTime.now());
-                    newUser.setLanguage("en");
-                    return newUser;
-                });
+        String normalizedLanguage = language == null || language.isBlank() ? "en" : language;
+        UUID userId = userRepository.findByTelegramId(telegramId)
+                .filter(existing -> isUnchanged(existing, firstName, lastName, username, photoUrl, normalizedLanguage))
+                .map(UserEntity::getId)
+                .orElseGet(() -> upsert(telegramId, firstName, lastName, username, photoUrl, normalizedLanguage));
 
-        user.setUsername(username);
-        user.setFirstName(firstName);
-        user.setLastName(lastName);
-        if (canOverridePhoto(user, photoUrl)) {
-            user.setPhotoUrl(photoUrl);
-        }
-        user.setLanguage(language == null || language.isBlank() ? "en" : language);
+        String token = jwtService.generate(userId);
+        return new AuthResponse(token, userId, firstName, username);
+    }
+
+    // Что делает: записывает нового или изменившегося пользователя.
+    // Как делает: выполняет INSERT ... ON CONFLICT и сбрасывает кэш пользователя; если параллельный вход уже записал те же данные, дочитывает id.
+    private UUID upsert(
+            Long telegramId,
+            String firstName,
+            String lastName,
+            String username,
+            String photoUrl,
+            String language
+    ) {
+        UUID userId = userRepository.upsertTelegramProfile(
+                        UUID.randomUUID(),
+                        telegramId,
+                        username,
+                        firstName,
+                        lastName,
+                        photoUrl,
+                        language,
+                        LocalDateTime.now()
+                )
+                .or(() -> userRepository.findByTelegramId(telegramId).map(UserEntity::getId))
+                .orElseThrow(() -> new IllegalStateException("Cannot store Telegram user"));
+        userCache.invalidate(userId);
+        return userId;
+    }
 
-        userRepository.save(user);
-        String token = jwtService.generate(user.getId());
-        return new AuthResponse(token, user.getId(), user.getFirstName(), user.getUsername());
+    // Что делает: проверяет, совпадает ли сохранённый профиль с данными входа.
+    // Как делает: сравнивает имя, username, язык и фото с учётом правила, что загруженный аватар не перетирается.
+    private boolean isUnchanged(
+            UserEntity user,
+            String firstName,
+            String lastName,
+            String username,
+            String photoUrl,
+            String language
+    ) {
+        return Objects.equals(user.getFirstName(), firstName)
+                && Objects.equals(user.getLastName(), lastName)
+                && Objects.equals(user.getUsername(), username)
+                && Objects.equals(user.getLanguage(), language)
+                && (!canOverridePhoto(user, photoUrl) || Objects.equals(user.getPhotoUrl(), photoUrl));
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
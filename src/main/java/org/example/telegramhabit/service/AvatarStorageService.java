@@ -1,17 +1,34 @@
 package org.example.telegramhabit.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.example.telegramhabit.entity.StoredImageEntity;
+import org.example.telegramhabit.entity.StoredImageVariantEntity;
 import org.example.telegramhabit.repository.StoredImageRepository;
+import org.example.telegramhabit.repository.StoredImageVariantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Locale;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
 
 @Service
 @RequiredArgsConstructor
@@ -19,23 +36,47 @@ import java.util.UUID;
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public class AvatarStorageService {
 
+    public static final String FILES_URL_PREFIX = "/api/files/";
+
+    private static final int VERSION_LENGTH = 16;
     private static final long MAX_AVATAR_SIZE = 5L * 1024L * 1024L;
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private static final Set<String> ALLOWED_EXT = Set.of("jpg", "jpeg", "png", "webp");
+    private static final int SNIFF_LENGTH = 12;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
 
     private final StoredImageRepository storedImageRepository;
+    private final StoredImageVariantRepository storedImageVariantRepository;
+    private final ImageStore imageStore;
+    private final ImageResizer imageResizer;
+    private final ImageCache imageCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.storage.image-variant-sizes:64,128,512}")
+    private List<Integer> variantSizes;
+
+    @Value("${app.storage.max-concurrent-uploads:4}")
+    private int maxConcurrentUploads;
+
+    private Semaphore uploadPermits;
+
+    @PostConstruct
+    // Что делает: подготавливает ограничитель одновременных загрузок.
+    // Как делает: создаёт семафор на заданное в конфигурации число слотов.
+    void init() {
+        this.uploadPermits = new Semaphore(Math.max(1, maxConcurrentUploads));
+    }
 
-    @Transactional
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
     // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
+    // Вызывать вне транзакции: запись файлов не должна держать соединение с БД.
     public String saveAvatar(MultipartFile file) {
         return saveImage(file, "Cannot store avatar file");
     }
 
-    @Transactional
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
     // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
+    // Вызывать вне транзакции: запись файлов не должна держать соединение с БД.
     public String saveHabitImage(MultipartFile file) {
         return saveImage(file, "Cannot store habit image");
     }
@@ -48,23 +89,183 @@ public class AvatarStorageService {
                 .orElseThrow(() -> new IllegalArgumentException("Image not found"));
     }
 
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: приводит запрошенный размер к ближайшему настроенному варианту, смотрит в кэш горячих картинок
+    // и при попадании не ходит ни в БД, ни в хранилище; иначе выбирает самый маленький вариант не меньше этого размера
+    // (или оригинал) и отдаёт Resource из ImageStore, а небольшое содержимое заодно кладёт в кэш.
+    // Метод не транзакционный, чтобы попадание в кэш не занимало соединение с БД.
+    public ImageContent requireContent(UUID imageId, Integer requestedSizePx) {
+        Integer sizePx = variantSize(requestedSizePx);
+        Optional<ImageCache.CachedImage> cached = imageCache.find(imageId, sizePx);
+        if (cached.isPresent()) {
+            ImageCache.CachedImage hit = cached.get();
+            return new ImageContent(hit.contentType(), hit.contentHash(), hit.imageHash(), new ByteArrayResource(hit.data()));
+        }
+        StoredImageEntity image = requireImage(imageId);
+        String contentType = image.getContentType();
+        String contentHash = image.getContentHash();
+        long sizeBytes = image.getSizeBytes();
+        if (sizePx != null && sizePx > 0) {
+            Optional<StoredImageVariantEntity> variant = storedImageVariantRepository
+                    .findFirstByImageAndSizePxGreaterThanEqualOrderBySizePxAsc(image, sizePx);
+            if (variant.isPresent()) {
+                contentType = variant.get().getContentType();
+                contentHash = variant.get().getContentHash();
+                sizeBytes = variant.get().getSizeBytes();
+            }
+        }
+        Resource resource = imageStore.get(contentHash);
+        if (!imageCache.accepts(sizeBytes)) {
+            return new ImageContent(contentType, contentHash, image.getContentHash(), resource);
+        }
+        byte[] data;
+        try {
+            data = resource.getContentAsByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot read image", ex);
+        }
+        imageCache.put(imageId, sizePx, new ImageCache.CachedImage(contentType, contentHash, image.getContentHash(), data));
+        return new ImageContent(contentType, contentHash, image.getContentHash(), new ByteArrayResource(data));
+    }
+
+    // Что делает: читает содержимое картинки по версионированному URL.
+    // Как делает: отдаёт то же, что requireContent, но сначала сверяет версию из URL с хэшем оригинала,
+    // чтобы под неизменяемым URL никогда не оказалось другое содержимое.
+    public ImageContent requireContent(UUID imageId, String version, Integer sizePx) {
+        ImageContent content = requireContent(imageId, sizePx);
+        if (version.length() != VERSION_LENGTH || !content.imageHash().startsWith(version)) {
+            throw new IllegalArgumentException("Image not found");
+        }
+        return content;
+    }
+
+    @Transactional
+    // Что делает: удаляет записи картинок вместе с их вариантами.
+    // Как делает: читает картинки и варианты пачкой, удаляет строки и выкидывает картинки из кэша;
+    // возвращает хэши содержимого с размерами, чтобы после коммита удалить ставшие ненужными файлы.
+    public Map<String, Long> deleteImages(Collection<UUID> imageIds) {
+        List<StoredImageEntity> images = storedImageRepository.findAllById(imageIds);
+        if (images.isEmpty()) {
+            return Map.of();
+        }
+        List<StoredImageVariantEntity> variants = storedImageVariantRepository.findByImageIn(images);
+        Map<String, Long> contents = new HashMap<>();
+        images.forEach(image -> contents.put(image.getContentHash(), image.getSizeBytes()));
+        variants.forEach(variant -> contents.put(variant.getContentHash(), variant.getSizeBytes()));
+        storedImageVariantRepository.deleteAllInBatch(variants);
+        storedImageRepository.deleteAllInBatch(images);
+        images.forEach(image -> imageCache.invalidate(image.getId()));
+        return contents;
+    }
+
+    // Что делает: приводит запрошенный размер к размеру варианта, который будет отдан.
+    // Как делает: берёт самый маленький настроенный размер варианта не меньше запрошенного, а больше наибольшего
+    // отдаёт оригинал (null); так ?size=101 и ?size=128 попадают в одну запись кэша, а не плодят копии тех же байт.
+    private Integer variantSize(Integer requestedSizePx) {
+        if (requestedSizePx == null || requestedSizePx <= 0) {
+            return null;
+        }
+        return variantSizes.stream()
+                .filter(size -> size >= requestedSizePx)
+                .min(Integer::compare)
+                .orElse(null);
+    }
+
+    // Что делает: удаляет содержимое из ImageStore, если на него больше никто не ссылается.
+    // Как делает: проверяет хэш в stored_image и stored_image_variant (одинаковые загрузки делят один файл) и только тогда
+    // удаляет, причём лишь файл, не записанный после cutoff: такие же байты могла только что загрузить транзакция,
+    // чья строка ещё не закоммичена и потому не видна проверке.
+    public boolean deleteContentIfUnreferenced(String contentHash, Instant cutoff) {
+        if (storedImageRepository.existsByContentHash(contentHash)
+                || storedImageVariantRepository.existsByContentHash(contentHash)) {
+            return false;
+        }
+        return imageStore.delete(contentHash, cutoff);
+    }
+
+    // Что делает: строит публичный URL картинки.
+    // Как делает: добавляет к /api/files/{id} версию из префикса хэша содержимого, чтобы URL можно было кэшировать навсегда.
+    public static String imageUrl(UUID imageId, String contentHash) {
+        return FILES_URL_PREFIX + imageId + "/" + contentHash.substring(0, VERSION_LENGTH);
+    }
+
+    // Что делает: достаёт id картинки из URL вида /api/files/{id} или /api/files/{id}/{version}.
+    // Как делает: отрезает префикс и всё после id (путь или query), а чужие и битые URL пропускает.
+    public static Optional<UUID> parseImageId(String url) {
+        if (url == null || !url.startsWith(FILES_URL_PREFIX)) {
+            return Optional.empty();
+        }
+        int end = FILES_URL_PREFIX.length();
+        while (end < url.length() && url.charAt(end) != '/' && url.charAt(end) != '?') {
+            end++;
+        }
+        try {
+            return Optional.of(UUID.fromString(url.substring(FILES_URL_PREFIX.length(), end)));
+        } catch (IllegalArgumentException ex) {
+            return Optional.empty();
+        }
+    }
+
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
-    // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
+    // Как делает: занимает слот из ограниченного пула загрузок, определяет формат по сигнатуре файла,
+    // потоково пишет содержимое в ImageStore, не читая всю загрузку в byte[], и строит варианты — всё без транзакции;
+    // соединение с БД берётся только на короткую транзакцию со вставкой метаданных. Файлы, записанные до коммита,
+    // сборщик мусора не тронет: он пропускает файлы моложе своего cutoff.
     private String saveImage(MultipartFile file, String storeErrorMessage) {
         validate(file);
-        String contentType = resolveContentType(file.getOriginalFilename(), file.getContentType());
-        UUID imageId = UUID.randomUUID();
+        if (!uploadPermits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many concurrent uploads");
+        }
         try {
+            String contentType;
+            ImageStore.StoredBlob blob;
+            try (InputStream in = new BufferedInputStream(file.getInputStream())) {
+                contentType = sniffContentType(in);
+                blob = imageStore.put(in);
+            } catch (IOException ex) {
+                throw new IllegalStateException(storeErrorMessage);
+            }
+            List<StoredVariant> variants = storeVariants(imageStore.get(blob.contentHash()));
+            UUID imageId = UUID.randomUUID();
             StoredImageEntity image = new StoredImageEntity();
             image.setId(imageId);
             image.setContentType(contentType);
-            image.setData(file.getBytes());
+            image.setContentHash(blob.contentHash());
+            image.setSizeBytes(blob.sizeBytes());
             image.setCreatedAt(LocalDateTime.now());
-            storedImageRepository.save(image);
-        } catch (IOException ex) {
-            throw new IllegalStateException(storeErrorMessage);
+            transactionTemplate.executeWithoutResult(status -> saveMetadata(image, variants));
+            return imageUrl(imageId, blob.contentHash());
+        } finally {
+            uploadPermits.release();
+        }
+    }
+
+    // Что делает: создаёт уменьшенные копии картинки для списков и ленты.
+    // Как делает: один раз декодирует сохранённый оригинал и пишет каждый вариант в ImageStore; метаданные
+    // возвращает, чтобы сохранить их вместе с картинкой одной короткой транзакцией.
+    private List<StoredVariant> storeVariants(Resource original) {
+        List<StoredVariant> stored = new ArrayList<>();
+        for (ImageResizer.Variant variant : imageResizer.resize(original, variantSizes)) {
+            stored.add(new StoredVariant(variant.sizePx(), variant.contentType(), imageStore.put(variant.data())));
+        }
+        return stored;
+    }
+
+    // Что делает: сохраняет метаданные картинки и её вариантов.
+    // Как делает: вставляет строку stored_image и строки stored_image_variant; вызывается внутри транзакции.
+    private void saveMetadata(StoredImageEntity image, List<StoredVariant> variants) {
+        storedImageRepository.save(image);
+        for (StoredVariant variant : variants) {
+            StoredImageVariantEntity entity = new StoredImageVariantEntity();
+            entity.setId(UUID.randomUUID());
+            entity.setImage(image);
+            entity.setSizePx(variant.sizePx());
+            entity.setContentType(variant.contentType());
+            entity.setContentHash(variant.blob().contentHash());
+            entity.setSizeBytes(variant.blob().sizeBytes());
+            entity.setCreatedAt(LocalDateTime.now());
+            storedImageVariantRepository.save(entity);
         }
-        return "/api/files/" + imageId;
     }
 
     // Что делает: проверяет входные данные и извлекает нужные значения.
@@ -78,55 +279,44 @@ public class AvatarStorageService {
         }
     }
 
-    // Что делает: преобразует или обновляет данные по правилам сервиса.
-    // Как делает: применяет правила преобразования, затем сохраняет или возвращает обновлённые данные.
-    private String resolveContentType(String originalFilename, String contentType) {
-        String ext = extractExt(originalFilename);
-        if (!ext.isBlank() && ALLOWED_EXT.contains(ext)) {
-            return mapExtToContentType(ext);
+    // Что делает: определяет тип картинки по первым байтам содержимого.
+    // Как делает: читает заголовок через mark/reset, не сдвигая поток, и сверяет сигнатуры JPEG, PNG и WebP;
+    // имени файла и заголовку Content-Type от клиента не доверяет.
+    private String sniffContentType(InputStream in) throws IOException {
+        byte[] header = new byte[SNIFF_LENGTH];
+        in.mark(SNIFF_LENGTH);
+        int read = in.readNBytes(header, 0, SNIFF_LENGTH);
+        in.reset();
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (read >= 8 && startsWith(header, 0, PNG_SIGNATURE)) {
+            return "image/png";
         }
-        String fromMime = mapMime(contentType);
-        if (fromMime != null) {
-            return fromMime;
+        if (read >= 12 && startsWith(header, 0, RIFF) && startsWith(header, 8, WEBP)) {
+            return "image/webp";
         }
         throw new IllegalArgumentException("Unsupported avatar format");
     }
 
-    // Что делает: проверяет входные данные и извлекает нужные значения.
-    // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
-    private String extractExt(String name) {
-        if (name == null) {
-            return "";
-        }
-        int idx = name.lastIndexOf('.');
-        if (idx < 0 || idx == name.length() - 1) {
-            return "";
+    // Что делает: проверяет, что в буфере с заданной позиции лежит нужная сигнатура.
+    // Как делает: сравнивает байты по одному.
+    private static boolean startsWith(byte[] data, int offset, byte[] signature) {
+        for (int i = 0; i < signature.length; i++) {
+            if (data[offset + i] != signature[i]) {
+                return false;
+            }
         }
-        return name.substring(idx + 1).toLowerCase(Locale.ROOT);
+        return true;
     }
 
-    // Что делает: преобразует или обновляет данные по правилам сервиса.
-    // Как делает: применяет правила преобразования, затем сохраняет или возвращает обновлённые данные.
-    private String mapMime(String contentType) {
-        if (contentType == null) {
-            return null;
-        }
-        return switch (contentType.toLowerCase(Locale.ROOT)) {
-            case "image/jpeg" -> "image/jpeg";
-            case "image/png" -> "image/png";
-            case "image/webp" -> "image/webp";
-            default -> null;
-        };
-    }
-
-    // Что делает: преобразует или обновляет данные по правилам сервиса.
-    // Как делает: применяет правила преобразования, затем сохраняет или возвращает обновлённые данные.
-    private String mapExtToContentType(String ext) {
-        return switch (ext) {
-            case "jpg", "jpeg" -> "image/jpeg";
-            case "png" -> "image/png";
-            case "webp" -> "image/webp";
-            default -> throw new IllegalArgumentException("Unsupported avatar format");
-        };
+    // Что делает: описывает содержимое картинки, готовое к отдаче клиенту.
+    // Как делает: хранит тип, хэш отдаваемого содержимого (для ETag), хэш оригинала (версия в URL) и Resource из хранилища.
+    public record ImageContent(String contentType, String contentHash, String imageHash, Resource resource) {
+    }
+
+    // Что делает: описывает вариант картинки, уже записанный в хранилище, но ещё не сохранённый в БД.
+    // Как делает: хранит размер, тип и блоб варианта.
+    private record StoredVariant(int sizePx, String contentType, ImageStore.StoredBlob blob) {
     }
 }
@@ -0,0 +1,83 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.telegramhabit.entity.SyncEntityType;
+import org.example.telegramhabit.entity.SyncStateEntity;
+import org.example.telegramhabit.entity.SyncTombstoneEntity;
+import org.example.telegramhabit.repository.SyncStateRepository;
+import org.example.telegramhabit.repository.SyncTombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+// Что делает: выдаёт номера изменений пользователя для дельта-синхронизации и хранит надгробия удалённых записей.
+// Как делает: увеличивает счётчик в sync_state под блокировкой строки, а старые надгробия периодически вычищает,
+// поднимая границу, ниже которой клиенту нужна полная синхронизация.
+public class ChangeSequenceService {
+
+    private final SyncStateRepository syncStateRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+
+    @Value("${app.sync.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    @Transactional
+    // Что делает: выдаёт следующий номер изменения пользователя.
+    // Как делает: блокирует строку счётчика до конца транзакции, поэтому параллельные изменения одного пользователя
+    // получают номера в порядке коммитов и клиент не пропустит запись с меньшим номером, закоммиченную позже;
+    // строку нового пользователя сначала создаёт через insertIfAbsent, чтобы блокировать было что.
+    public long next(UUID userId) {
+        syncStateRepository.insertIfAbsent(userId, LocalDateTime.now());
+        SyncStateEntity state = syncStateRepository.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Sync state row is missing"));
+        state.setLastSeq(state.getLastSeq() + 1);
+        state.setUpdatedAt(LocalDateTime.now());
+        syncStateRepository.save(state);
+        return state.getLastSeq();
+    }
+
+    @Transactional
+    // Что делает: записывает надгробия удалённых записей.
+    // Как делает: сохраняет пачкой по строке на каждый id с номером изменения, в котором произошло удаление.
+    public void tombstones(UUID userId, SyncEntityType type, Collection<UUID> entityIds, long seq) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        syncTombstoneRepository.saveAll(entityIds.stream()
+                .map(entityId -> {
+                    SyncTombstoneEntity tombstone = new SyncTombstoneEntity();
+                    tombstone.setId(UUID.randomUUID());
+                    tombstone.setUserId(userId);
+                    tombstone.setEntityType(type);
+                    tombstone.setEntityId(entityId);
+                    tombstone.setSeq(seq);
+                    tombstone.setCreatedAt(now);
+                    return tombstone;
+                })
+                .toList());
+    }
+
+    @Scheduled(cron = "${app.sync.tombstone-prune-cron:0 45 4 * * *}")
+    @Transactional
+    // Что делает: вычищает надгробия старше срока хранения.
+    // Как делает: сначала поднимает tombstone_floor затронутых пользователей, затем удаляет надгробия; клиент,
+    // чей номер ниже границы, получит полную синхронизацию вместо дельты с пропущенными удалениями.
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        int users = syncStateRepository.raiseTombstoneFloors(cutoff);
+        int deleted = syncTombstoneRepository.deleteCreatedBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Sync tombstones pruned: users={} deleted={}", users, deleted);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.telegramhabit.service;
+
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Что делает: хранит накопительные суммы выполненных периодов привычки (дней или недель) для запросов по диапазонам.
+// Как делает: prefix[i] — число выполненных периодов среди первых i, начиная с origin; число выполненных и
+// возможных периодов в любом диапазоне считается двумя вычитаниями, без чтения отметок.
+public final class CompletionIndex {
+
+    private final HabitType type;
+    private final Integer timesPerWeek;
+    private final LocalDate origin;
+    private final int[] prefix;
+
+    // Что делает: создаёт индекс по готовым накопительным суммам.
+    // Как делает: запоминает правила привычки, чтобы кэш мог отбросить индекс после их смены.
+    private CompletionIndex(HabitType type, Integer timesPerWeek, LocalDate origin, int[] prefix) {
+        this.type = type;
+        this.timesPerWeek = timesPerWeek;
+        this.origin = origin;
+        this.prefix = prefix;
+    }
+
+    // Что делает: строит индекс привычки по всем датам выполнения.
+    // Как делает: начинает с периода создания привычки (или первой отметки, если она раньше), раскладывает
+    // отметки по периодам до текущего включительно и накапливает число выполненных периодов.
+    public static CompletionIndex build(HabitEntity habit, Collection<LocalDate> dates, LocalDate today) {
+        LocalDate start = habit.getCreatedAt().toLocalDate();
+        for (LocalDate date : dates) {
+            if (date.isBefore(start)) {
+                start = date;
+            }
+        }
+        int length = periodLength(habit.getType());
+        LocalDate origin = length == 1 ? start : start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int periods = Math.max(0, (int) Math.floorDiv(ChronoUnit.DAYS.between(origin, today), length) + 1);
+
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (LocalDate date : dates) {
+            long period = Math.floorDiv(ChronoUnit.DAYS.between(origin, date), length);
+            if (period < periods) {
+                counts.merge((int) period, 1, Integer::sum);
+            }
+        }
+        int required = habit.getType() == HabitType.DAILY ? 1 : habit.getTimesPerWeek() == null ? Integer.MAX_VALUE : habit.getTimesPerWeek();
+        int[] prefix = new int[periods + 1];
+        for (int i = 0; i < periods; i++) {
+            prefix[i + 1] = prefix[i] + (counts.getOrDefault(i, 0) >= required ? 1 : 0);
+        }
+        return new CompletionIndex(habit.getType(), habit.getTimesPerWeek(), origin, prefix);
+    }
+
+    // Что делает: проверяет, что индекс построен по текущим правилам привычки.
+    // Как делает: сравнивает тип и цель на неделю.
+    public boolean matches(HabitEntity habit) {
+        return type == habit.getType() && Objects.equals(timesPerWeek, habit.getTimesPerWeek());
+    }
+
+    // Что делает: возвращает число выполненных периодов, начинающихся в диапазоне [from, to].
+    // Как делает: разность двух накопительных сумм; периоды после построения индекса считает невыполненными,
+    // кэш сбрасывает индекс при каждой новой отметке.
+    public int completed(LocalDate from, LocalDate to) {
+        long lo = clamp(firstPeriod(from), prefix.length - 1);
+        long hi = clamp(lastPeriod(to) + 1, prefix.length - 1);
+        return hi > lo ? prefix[(int) hi] - prefix[(int) lo] : 0;
+    }
+
+    // Что делает: возвращает число периодов, которые можно было выполнить в диапазоне [from, to].
+    // Как делает: считает периоды, начинающиеся в диапазоне, не раньше начала привычки и не позже текущего.
+    public int possible(LocalDate from, LocalDate to, LocalDate today) {
+        long lo = Math.max(0, firstPeriod(from));
+        long hi = Math.min(lastPeriod(to), lastPeriod(today)) + 1;
+        return (int) Math.max(0, hi - lo);
+    }
+
+    // Что делает: возвращает номер первого периода, начинающегося не раньше даты.
+    // Как делает: делит число дней от origin на длину периода с округлением вверх.
+    private long firstPeriod(LocalDate date) {
+        return -Math.floorDiv(-ChronoUnit.DAYS.between(origin, date), periodLength(type));
+    }
+
+    // Что делает: возвращает номер последнего периода, начинающегося не позже даты.
+    // Как делает: делит число дней от origin на длину периода с округлением вниз.
+    private long lastPeriod(LocalDate date) {
+        return Math.floorDiv(ChronoUnit.DAYS.between(origin, date), periodLength(type));
+    }
+
+    // Что делает: ограничивает номер границы размером индекса.
+    // Как делает: приводит значение к отрезку [0, max].
+    private static long clamp(long value, int max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    // Что делает: возвращает длину периода привычки в днях.
+    // Как делает: 1 для ежедневной привычки, 7 для недельной.
+    private static int periodLength(HabitType type) {
+        return type == HabitType.DAILY ? 1 : 7;
+    }
+}
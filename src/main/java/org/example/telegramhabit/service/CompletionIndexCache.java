@@ -0,0 +1,50 @@
+package org.example.telegramhabit.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+// Что делает: хранит индексы накопительных сумм выполнений по привычкам для аналитики.
+// Как делает: держит InvalidatingCache с ограничением по размеру и TTL; сервисы сбрасывают индекс привычки
+// при каждом изменении её отметок или правил.
+public class CompletionIndexCache {
+
+    private final InvalidatingCache<UUID, CompletionIndex> indexes;
+
+    // Что делает: создаёт кэш с настройками из конфигурации.
+    // Как делает: строит кэш с ограничением по количеству привычек и времени жизни.
+    public CompletionIndexCache(
+            @Value("${app.analytics.cache-ttl-seconds:3600}") long ttlSeconds,
+            @Value("${app.analytics.cache-max-size:20000}") long maxSize
+    ) {
+        this.indexes = new InvalidatingCache<>(ttlSeconds, maxSize);
+    }
+
+    // Что делает: возвращает поколение кэша до чтения отметок из БД.
+    // Как делает: результат передаётся в put, чтобы индекс, построенный по отметкам до сброса, не попал в кэш.
+    public long stamp() {
+        return indexes.stamp();
+    }
+
+    // Что делает: возвращает уже построенные индексы привычек.
+    // Как делает: читает записи пачкой без загрузки из БД; отсутствующих привычек в ответе нет.
+    public Map<UUID, CompletionIndex> findAll(Collection<UUID> habitIds) {
+        return indexes.getAllPresent(habitIds);
+    }
+
+    // Что делает: кладёт построенный индекс в кэш.
+    // Как делает: сохраняет запись под id привычки, если после stamp её не сбрасывали.
+    public void put(UUID habitId, CompletionIndex index, long stamp) {
+        indexes.put(habitId, index, stamp);
+    }
+
+    // Что делает: сбрасывает индексы привычек после изменения их отметок.
+    // Как делает: сбрасывает сразу и ещё раз после завершения транзакции через InvalidatingCache.
+    public void invalidate(Collection<UUID> habitIds) {
+        indexes.invalidate(habitIds);
+    }
+}
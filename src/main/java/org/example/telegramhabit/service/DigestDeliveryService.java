@@ -0,0 +1,180 @@
+package org.example.telegramhabit.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.telegramhabit.entity.DigestLogEntity;
+import org.example.telegramhabit.repository.DigestLogRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+// Что делает: доставляет готовые недельные дайджесты в Telegram с ограничением скорости.
+// Как делает: держит ограниченную очередь сообщений, которую наполняет WeeklyDigestService, и в собственном потоке
+// раз в интервал отправляет из неё не больше messages-per-tick сообщений; успешную отправку записывает в digest_log,
+// временную ошибку откладывает на повтор с растущей задержкой, а при постоянной (бот заблокирован) сообщение бросает.
+public class DigestDeliveryService {
+
+    private final TelegramBotClient telegramBotClient;
+    private final DigestLogRepository digestLogRepository;
+    private final BlockingQueue<DigestMessage> queue;
+    private final PriorityQueue<DigestMessage> retries = new PriorityQueue<>(Comparator.comparingLong(DigestMessage::notBefore));
+    private final int messagesPerTick;
+    private final long tickMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+
+    private ScheduledExecutorService sender;
+    private long pausedUntil;
+    private long sent;
+    private long failed;
+    private long dropped;
+    private long drainStartedNanos;
+
+    // Что делает: создаёт очередь доставки с настройками из конфигурации.
+    // Как делает: ограничивает ёмкость очереди, чтобы задача дайджеста ждала отправителя, а не копила все сообщения в памяти.
+    public DigestDeliveryService(
+            TelegramBotClient telegramBotClient,
+            DigestLogRepository digestLogRepository,
+            @Value("${app.telegram.digest.queue-capacity:200000}") int queueCapacity,
+            @Value("${app.telegram.digest.messages-per-tick:25}") int messagesPerTick,
+            @Value("${app.telegram.digest.tick-ms:1000}") long tickMs,
+            @Value("${app.telegram.digest.max-attempts:5}") int maxAttempts,
+            @Value("${app.telegram.digest.retry-backoff-ms:60000}") long retryBackoffMs
+    ) {
+        this.telegramBotClient = telegramBotClient;
+        this.digestLogRepository = digestLogRepository;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.messagesPerTick = messagesPerTick;
+        this.tickMs = tickMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    // Что делает: запускает поток отправки.
+    // Как делает: отдельный однопоточный планировщик, а не общий поток @Scheduled, чтобы отправка дайджестов
+    // и ожидающие места в очереди производители не задерживали напоминания, очистку и сборку мусора.
+    void start() {
+        sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "digest-delivery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sender.scheduleWithFixedDelay(this::deliverSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    // Что делает: останавливает поток отправки при остановке приложения.
+    // Как делает: прерывает текущую порцию; неотправленные сообщения не попали в digest_log и соберутся повторным запуском.
+    void stop() {
+        sender.shutdownNow();
+    }
+
+    // Что делает: ставит дайджест в очередь на отправку.
+    // Как делает: при заполненной очереди блокирует вызывающий поток, пока отправитель не освободит место;
+    // вызывается только из потоков сборки дайджеста, поток отправки сюда не пишет.
+    public void enqueue(DigestMessage message) throws InterruptedException {
+        queue.put(message);
+    }
+
+    // Что делает: отправляет порцию и не даёт исключению остановить периодическую задачу.
+    // Как делает: ScheduledExecutorService отменяет задачу после первого исключения, поэтому ошибка только логируется.
+    private void deliverSafely() {
+        try {
+            deliver();
+        } catch (RuntimeException e) {
+            log.error("Weekly digest delivery tick failed", e);
+        }
+    }
+
+    // Что делает: отправляет очередную порцию дайджестов.
+    // Как делает: берёт не больше messages-per-tick сообщений, сначала подошедшие повторы, затем новые из очереди,
+    // пропуская тики, пока действует пауза по 429, и, когда всё разослано, пишет в лог число отправленных,
+    // неудачных и брошенных сообщений и скорость доставки.
+    void deliver() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < messagesPerTick && now >= pausedUntil; i++) {
+            DigestMessage message = retries.isEmpty() || retries.peek().notBefore() > now ? queue.poll() : retries.poll();
+            if (message == null) {
+                break;
+            }
+            if (sent + failed + dropped == 0) {
+                drainStartedNanos = System.nanoTime();
+            }
+            send(message, now);
+        }
+        if (queue.isEmpty() && retries.isEmpty() && sent + failed + dropped > 0) {
+            double seconds = Math.max(1e-3, (System.nanoTime() - drainStartedNanos) / 1e9);
+            log.info("Weekly digest delivery: sent={} failedAttempts={} dropped={} rate={}/s",
+                    sent, failed, dropped, Math.round((sent + failed) / seconds));
+            sent = 0;
+            failed = 0;
+            dropped = 0;
+        }
+    }
+
+    // Что делает: отправляет одно сообщение.
+    // Как делает: при успехе записывает digest_log. Постоянную ошибку (403 — бот заблокирован, 400 — чат не найден)
+    // не повторяет. На 429 ставит на паузу всю доставку на retry_after и возвращает сообщение в повторы, не считая
+    // попытку. Прочие временные ошибки откладывает на retry-backoff-ms, удваивая задержку с каждой попыткой, а после
+    // max-attempts бросает сообщение с предупреждением в логе. Повторы лежат в отдельной куче, а не в ограниченной
+    // очереди, чтобы поток отправки не ждал места сам у себя.
+    private void send(DigestMessage message, long now) {
+        TelegramBotClient.SendResult result = telegramBotClient.send(message.chatId(), message.text());
+        if (result.status() == TelegramBotClient.SendStatus.SENT) {
+            DigestLogEntity entry = new DigestLogEntity();
+            entry.setId(UUID.randomUUID());
+            entry.setUserId(message.userId());
+            entry.setWeekStart(message.weekStart());
+            entry.setSentAt(LocalDateTime.now());
+            digestLogRepository.save(entry);
+            sent++;
+            return;
+        }
+        failed++;
+        if (result.status() == TelegramBotClient.SendStatus.PERMANENT) {
+            dropped++;
+            log.info("Weekly digest for user {} week {} dropped: chat rejected the message", message.userId(), message.weekStart());
+            return;
+        }
+        if (result.retryAfterSeconds() > 0) {
+            pausedUntil = now + result.retryAfterSeconds() * 1000;
+            retries.add(new DigestMessage(message.userId(), message.chatId(), message.weekStart(), message.text(),
+                    message.attempts(), pausedUntil));
+            return;
+        }
+        int attempts = message.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            dropped++;
+            log.warn("Weekly digest for user {} week {} dropped after {} attempts", message.userId(), message.weekStart(), attempts);
+            return;
+        }
+        long delay = retryBackoffMs << Math.min(attempts - 1, 20);
+        retries.add(new DigestMessage(message.userId(), message.chatId(), message.weekStart(), message.text(), attempts, now + delay));
+    }
+
+    // Что делает: описывает одно сообщение дайджеста в очереди.
+    // Как делает: хранит пользователя, чат Telegram, неделю дайджеста, готовый текст, число неудачных попыток
+    // и момент (epoch ms), раньше которого повтор не отправляется.
+    public record DigestMessage(UUID userId, Long chatId, LocalDate weekStart, String text, int attempts, long notBefore) {
+
+        // Что делает: создаёт новое сообщение без попыток отправки.
+        // Как делает: обнуляет счётчик попыток и время повтора.
+        public DigestMessage(UUID userId, Long chatId, LocalDate weekStart, String text) {
+            this(userId, chatId, weekStart, text, 0, 0L);
+        }
+    }
+}
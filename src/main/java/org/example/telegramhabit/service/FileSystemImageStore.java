@@ -0,0 +1,191 @@
+package org.example.telegramhabit.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+@Component
+@ConditionalOnProperty(name = "app.storage.image-store", havingValue = "filesystem", matchIfMissing = true)
+// Что делает: хранит содержимое картинок в локальной файловой системе.
+// Как делает: раскладывает файлы по пути <root>/ab/cd/<sha256>, пишет через временный файл и атомарный move;
+// запись и удаление одного хэша идут под общей блокировкой, а повторная запись обновляет mtime файла.
+public class FileSystemImageStore implements ImageStore {
+
+    private static final Pattern CONTENT_HASH = Pattern.compile("^[0-9a-f]{64}$");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    // Что делает: создаёт хранилище с корнем из конфигурации.
+    // Как делает: нормализует путь к каталогу картинок; по умолчанию он лежит вне upload-dir, который раздаётся
+    // статикой по /uploads/** без авторизации.
+    public FileSystemImageStore(@Value("${app.storage.image-dir:images}") String imageDir) {
+        this.root = Paths.get(imageDir).toAbsolutePath().normalize();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    // Что делает: создаёт или сохраняет данные и возвращает результат операции.
+    // Как делает: считает SHA-256, и если такого файла ещё нет, пишет байты во временный файл и переносит его на место;
+    // если файл уже есть, только обновляет его mtime, чтобы сборщик мусора не удалил его из-под новой загрузки.
+    public StoredBlob put(byte[] data) {
+        String contentHash = sha256Hex(data);
+        Path target = resolve(contentHash);
+        try {
+            synchronized (lockFor(contentHash)) {
+                if (touchIfExists(target)) {
+                    return new StoredBlob(contentHash, data.length);
+                }
+                Files.createDirectories(target.getParent());
+                Path temp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+                try {
+                    Files.write(temp, data);
+                    moveIntoPlace(temp, target);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot store image", ex);
+        }
+        return new StoredBlob(contentHash, data.length);
+    }
+
+    @Override
+    // Что делает: создаёт или сохраняет данные и возвращает результат операции.
+    // Как делает: копирует поток во временный файл в корне хранилища через DigestInputStream и переносит файл на место по хэшу;
+    // если такое содержимое уже есть, обновляет mtime существующего файла.
+    public StoredBlob put(InputStream in) {
+        try {
+            Files.createDirectories(root);
+            Path temp = Files.createTempFile(root, "upload", ".tmp");
+            try {
+                MessageDigest digest = sha256();
+                long size;
+                try (DigestInputStream digestIn = new DigestInputStream(in, digest)) {
+                    size = Files.copy(digestIn, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                String contentHash = HexFormat.of().formatHex(digest.digest());
+                Path target = resolve(contentHash);
+                synchronized (lockFor(contentHash)) {
+                    if (!touchIfExists(target)) {
+                        Files.createDirectories(target.getParent());
+                        moveIntoPlace(temp, target);
+                    }
+                }
+                return new StoredBlob(contentHash, size);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot store image", ex);
+        }
+    }
+
+    @Override
+    // Что делает: проверяет входные данные и извлекает нужные значения.
+    // Как делает: проверяет, что файл с таким хэшем существует, и отдаёт его как FileSystemResource.
+    public Resource get(String contentHash) {
+        Path path = resolve(contentHash);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Image not found");
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    // Что делает: удаляет данные по условиям метода с учётом связей.
+    // Как делает: под блокировкой хэша сверяет mtime файла с cutoff и удаляет файл, только если он старше;
+    // блокировка не даёт put обновить mtime между проверкой и удалением.
+    public boolean delete(String contentHash, Instant cutoff) {
+        Path path = resolve(contentHash);
+        try {
+            synchronized (lockFor(contentHash)) {
+                if (!Files.exists(path) || Files.getLastModifiedTime(path).toInstant().isAfter(cutoff)) {
+                    return false;
+                }
+                return Files.deleteIfExists(path);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot delete image", ex);
+        }
+    }
+
+    // Что делает: отмечает уже существующий файл как только что записанный.
+    // Как делает: если файл есть, ставит ему mtime на текущее время и возвращает true.
+    private boolean touchIfExists(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return false;
+        }
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        return true;
+    }
+
+    // Что делает: возвращает объект блокировки для хэша.
+    // Как делает: выбирает одну из фиксированного набора блокировок по первым символам хэша.
+    private Object lockFor(String contentHash) {
+        return locks[Integer.parseInt(contentHash.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+
+    // Что делает: вычисляет путь к файлу по хэшу.
+    // Как делает: проверяет формат хэша и раскладывает файлы по двум уровням подкаталогов, чтобы не было огромных каталогов.
+    private Path resolve(String contentHash) {
+        if (contentHash == null || !CONTENT_HASH.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Invalid image hash");
+        }
+        return root.resolve(contentHash.substring(0, 2))
+                .resolve(contentHash.substring(2, 4))
+                .resolve(contentHash);
+    }
+
+    // Что делает: переносит записанный временный файл на постоянное место.
+    // Как делает: пробует атомарный move; если другой поток уже положил тот же хэш, просто оставляет его файл.
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException ignored) {
+            // такое же содержимое уже записано параллельной загрузкой
+        } catch (AtomicMoveNotSupportedException ex) {
+            if (!Files.exists(target)) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    // Что делает: считает SHA-256 от байтов.
+    // Как делает: возвращает хэш в hex в нижнем регистре.
+    private static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(sha256().digest(data));
+    }
+
+    // Что делает: создаёт новый объект подсчёта SHA-256.
+    // Как делает: берёт MessageDigest из JCA; алгоритм обязателен для любой JVM.
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
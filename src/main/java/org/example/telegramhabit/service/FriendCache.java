@@ -0,0 +1,45 @@
+package org.example.telegramhabit.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Component
+// Что делает: хранит множества id друзей по пользователям, чтобы проверки дружбы были поиском в хэше.
+// Как делает: держит ограниченный по размеру и TTL InvalidatingCache неизменяемых Set<UUID> и сбрасывает его после коммита изменений.
+public class FriendCache {
+
+    private final InvalidatingCache<UUID, Set<UUID>> friendIds;
+
+    // Что делает: создаёт кэш с настройками из конфигурации.
+    // Как делает: строит кэш с ограничением по количеству пользователей и времени жизни.
+    public FriendCache(
+            @Value("${app.friends.cache-ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.friends.cache-max-size:10000}") long maxSize
+    ) {
+        this.friendIds = new InvalidatingCache<>(ttlSeconds, maxSize);
+    }
+
+    // Что делает: возвращает закэшированное множество друзей, если оно уже есть.
+    // Как делает: читает запись без загрузки из БД.
+    public Optional<Set<UUID>> find(UUID userId) {
+        return Optional.ofNullable(friendIds.getIfPresent(userId));
+    }
+
+    // Что делает: возвращает множество друзей, загружая его при промахе.
+    // Как делает: Caffeine вызывает загрузчик один раз на ключ даже при параллельных запросах и кэширует неизменяемую копию.
+    public Set<UUID> get(UUID userId, Function<UUID, Set<UUID>> loader) {
+        return friendIds.get(userId, id -> Set.copyOf(loader.apply(id)));
+    }
+
+    // Что делает: сбрасывает множества друзей после изменения дружбы.
+    // Как делает: сбрасывает сразу и ещё раз после завершения транзакции через InvalidatingCache.
+    public void invalidate(UUID... userIds) {
+        friendIds.invalidate(List.of(userIds));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.FriendDashboardResponse;
+import org.example.telegramhabit.dto.FriendHabitResponse;
+import org.example.telegramhabit.dto.FriendResponse;
+import org.example.telegramhabit.dto.HabitReactionSummaryResponse;
+import org.example.telegramhabit.entity.UserEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: собирает экран профиля друга одним ответом.
+// Как делает: один раз проверяет дружбу и затем пакетно читает привычки, их выполнения и реакции.
+public class FriendDashboardService {
+
+    private final FriendService friendService;
+    private final HabitService habitService;
+    private final HabitReactionService habitReactionService;
+
+    @Transactional(readOnly = true)
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: проверяет дружбу, берёт профиль из кэша пользователей, привычки со статистикой двумя запросами
+    // и реакции на все привычки ещё двумя, вместо отдельных запросов на каждую привычку.
+    public FriendDashboardResponse dashboard(UserEntity currentUser, UUID friendId) {
+        UserEntity friend = friendService.requireFriend(currentUser, friendId);
+        List<HabitService.HabitWithStats> habits = habitService.activeWithStatsByOwner(friend);
+        List<UUID> habitIds = habits.stream().map(item -> item.habit().id()).toList();
+        Map<UUID, List<HabitReactionSummaryResponse>> reactions = habitReactionService.summary(habitIds, currentUser);
+
+        FriendResponse profile = new FriendResponse(
+                friend.getId(),
+                friend.getUsername(),
+                friend.getFirstName(),
+                friend.getLastName(),
+                friend.getPhotoUrl()
+        );
+        return new FriendDashboardResponse(
+                profile,
+                habits.stream()
+                        .map(item -> new FriendHabitResponse(
+                                item.habit(),
+                                item.stats(),
+                                reactions.getOrDefault(item.habit().id(), List.of())
+                        ))
+                        .toList()
+        );
+    }
+}
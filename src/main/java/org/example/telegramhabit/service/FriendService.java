@@ -16,7 +16,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -27,6 +29,8 @@ public class FriendService {
 
     private final FriendshipRepository friendshipRepository;
     private final FriendInviteRepository friendInviteRepository;
+    private final FriendCache friendCache;
+    private final UserService userService;
 
     @Value("${app.friends.invite-base-url:http://localhost:5173/friends}")
     private String inviteBaseUrl;
@@ -90,6 +94,7 @@ public class FriendService {
 
         createEdgeIfMissing(inviter, user);
         createEdgeIfMissing(user, inviter);
+        friendCache.invalidate(inviter.getId(), user.getId());
 
         if (invite.getUsedAt() == null) {
             invite.setUsedAt(LocalDateTime.now());
@@ -99,15 +104,6 @@ public class FriendService {
         return toFriendResponse(inviter);
     }
 
-    @Transactional(readOnly = true)
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    public List<UserEntity> friendsOf(UserEntity user) {
-        return friendshipRepository.findByUser(user).stream()
-                .map(FriendshipEntity::getFriend)
-                .toList();
-    }
-
     @Transactional
     // Что делает: удаляет данные по условиям метода с учётом связей.
     // Как делает: проверяет доступ и существование сущности, затем удаляет связанные и целевые записи.
@@ -116,16 +112,37 @@ public class FriendService {
 
         friendshipRepository.deleteByUserAndFriend(user, friend);
         friendshipRepository.deleteByUserAndFriend(friend, user);
+        friendCache.invalidate(user.getId(), friend.getId());
+    }
+
+    // Что делает: возвращает множество id друзей пользователя.
+    // Как делает: берёт его из кэша, а при промахе читает из friendship только friend_id.
+    public Set<UUID> friendIds(UUID userId) {
+        return friendCache.get(userId, id -> new HashSet<>(friendshipRepository.findFriendIds(id)));
+    }
+
+    // Что делает: проверяет, что пользователи дружат.
+    // Как делает: если множество друзей уже в кэше, ищет в нём за O(1), иначе делает exists-запрос по индексу
+    // и не грузит весь список друзей ради одной проверки.
+    public boolean isFriend(UUID userId, UUID friendId) {
+        return friendCache.find(userId)
+                .map(ids -> ids.contains(friendId))
+                .orElseGet(() -> friendshipRepository.existsByUserIdAndFriendId(userId, friendId));
+    }
+
+    // Что делает: проверяет входные данные и извлекает нужные значения.
+    // Как делает: бросает EntityNotFoundException, если пользователи не дружат; сам профиль друга не загружает.
+    public void requireFriendship(UserEntity user, UUID friendId) {
+        if (!isFriend(user.getId(), friendId)) {
+            throw new EntityNotFoundException("Friend not found");
+        }
     }
 
-    @Transactional(readOnly = true)
     // Что делает: проверяет входные данные и извлекает нужные значения.
-    // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
+    // Как делает: проверяет дружбу без загрузки списка друзей и берёт профиль друга через кэш пользователей.
     public UserEntity requireFriend(UserEntity user, UUID friendId) {
-        return friendsOf(user).stream()
-                .filter(candidate -> candidate.getId().equals(friendId))
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("Friend not found"));
+        requireFriendship(user, friendId);
+        return userService.requireById(friendId);
     }
 
     @Transactional(readOnly = true)
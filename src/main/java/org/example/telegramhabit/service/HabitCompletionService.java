@@ -1,20 +1,41 @@
 package org.example.telegramhabit.service;
 
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.BulkCompletionResponse;
+import org.example.telegramhabit.dto.CompletionOperationRequest;
+import org.example.telegramhabit.dto.CompletionOperationResult;
 import org.example.telegramhabit.dto.HabitCompletionResponse;
+import org.example.telegramhabit.dto.HabitHeatmapResponse;
+import org.example.telegramhabit.dto.HabitHistoryResponse;
+import org.example.telegramhabit.dto.HeatmapResponse;
 import org.example.telegramhabit.entity.ActivityType;
 import org.example.telegramhabit.entity.HabitCompletionEntity;
 import org.example.telegramhabit.entity.HabitEntity;
 import org.example.telegramhabit.entity.HabitType;
+import org.example.telegramhabit.entity.SyncEntityType;
 import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,51 +47,257 @@ public class HabitCompletionService {
     private final HabitService habitService;
     private final ActivityService activityService;
     private final StreakService streakService;
+    private final UserStatsService userStatsService;
+    private final TodayCache todayCache;
+    private final CompletionIndexCache completionIndexCache;
+    private final ChangeSequenceService changeSequenceService;
+
+    @Value("${app.habits.backdate-window-days:30}")
+    private long backdateWindowDays;
+
+    @Value("${app.habits.history-default-page-size:100}")
+    private int historyDefaultPageSize;
+
+    @Value("${app.habits.history-max-page-size:366}")
+    private int historyMaxPageSize;
+
+    @Value("${app.habits.heatmap-max-days:1100}")
+    private long heatmapMaxDays;
+
+    @Value("${app.habits.heatmap-max-habits:50}")
+    private int heatmapMaxHabits;
 
     @Transactional
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: отмечает привычку выполненной сегодня.
     public HabitCompletionResponse complete(UserEntity user, UUID habitId) {
-        HabitEntity habit = habitService.requireOwnedHabit(user, habitId);
+        return complete(user, habitId, LocalDate.now());
+    }
+
+    @Transactional
+    // Что делает: отмечает привычку выполненной на сегодня или на прошедшую дату в пределах окна.
+    // Как делает: под блокировкой привычки сохраняет отметку и чинит состояние серии только вокруг этой даты;
+    // в ленту пишет выполнение за сегодня, а события серии — если отметка продлила текущую серию.
+    public HabitCompletionResponse complete(UserEntity user, UUID habitId, LocalDate date) {
         LocalDate today = LocalDate.now();
-        HabitCompletionEntity completion = completionRepository.findByHabitAndDate(habit, today)
-                .orElseGet(() -> {
-                    HabitCompletionEntity newCompletion = new HabitCompletionEntity();
-                    newCompletion.setId(UUID.randomUUID());
-                    newCompletion.setHabit(habit);
-                    newCompletion.setDate(today);
-                    newCompletion.setCreatedAt(LocalDateTime.now());
-                    return newCompletion;
-                });
+        requireAllowedDate(date, today);
+        HabitEntity habit = habitService.requireOwnedHabitForUpdate(user, habitId);
+        HabitCompletionEntity completion = completionRepository.findByHabitAndDate(habit, date)
+                .orElseGet(() -> newCompletion(habit, date));
 
         if (completion.isCompleted()) {
             return toResponse(completion);
         }
 
+        boolean backdated = date.isBefore(today);
+        int currentBefore = backdated ? streakService.currentStreak(habit) : 0;
+        long seq = changeSequenceService.next(user.getId());
         completion.setCompleted(true);
+        completion.setChangeSeq(seq);
+        habit.setChangeSeq(seq);
         completionRepository.save(completion);
+        streakService.applyChange(habit, date, true);
+        userStatsService.recordCompletion(user.getId(), date);
+        todayCache.invalidate(user.getId());
+        completionIndexCache.invalidate(List.of(habit.getId()));
 
-        activityService.log(user, habit, ActivityType.COMPLETED, completedMessage(user, habit));
-        emitStreakEvents(user, habit);
+        if (!backdated) {
+            activityService.log(user, habit, ActivityType.COMPLETED, completedMessage(user, habit));
+        }
+        if (!backdated || streakService.currentStreak(habit) > currentBefore) {
+            emitStreakEvents(user, habit);
+        }
         return toResponse(completion);
     }
 
     @Transactional
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: под блокировкой привычки удаляет отметку на любую дату (окно бэкдейта ограничивает только отметку,
+    // чтобы ошибочную старую отметку можно было снять) и чинит состояние серии вокруг неё.
     public void uncomplete(UserEntity user, UUID habitId, LocalDate date) {
-        HabitEntity habit = habitService.requireOwnedHabit(user, habitId);
-        completionRepository.findByHabitAndDate(habit, date).ifPresent(completionRepository::delete);
+        HabitEntity habit = habitService.requireOwnedHabitForUpdate(user, habitId);
+        completionRepository.findByHabitAndDate(habit, date).ifPresent(completion -> {
+            long seq = changeSequenceService.next(user.getId());
+            completionRepository.delete(completion);
+            changeSequenceService.tombstones(user.getId(), SyncEntityType.COMPLETION, List.of(completion.getId()), seq);
+            habit.setChangeSeq(seq);
+            if (completion.isCompleted()) {
+                streakService.applyChange(habit, date, false);
+            }
+            userStatsService.recompute(user.getId());
+            todayCache.invalidate(user.getId());
+            completionIndexCache.invalidate(List.of(habit.getId()));
+        });
+    }
+
+    @Transactional
+    // Что делает: применяет пакет отметок выполнения одной транзакцией (например, офлайн-очередь клиента).
+    // Как делает: одним запросом читает привычки, другим — существующие отметки на нужные даты, применяет операции
+    // по порядку в памяти, затем пачкой удаляет и сохраняет изменённые строки; серии и события ленты считает
+    // один раз на каждую затронутую привычку, а статистику пользователя пересчитывает один раз на весь пакет.
+    // Как и одиночная отметка, пишет события серии, если пакет продлил текущую серию задним числом.
+    public BulkCompletionResponse applyBatch(UserEntity user, List<CompletionOperationRequest> operations) {
+        LocalDate today = LocalDate.now();
+        Map<UUID, HabitEntity> habits = habitService.findOwnedHabitsForUpdate(
+                user,
+                operations.stream().map(CompletionOperationRequest::habitId).collect(Collectors.toSet())
+        );
+        Set<LocalDate> dates = operations.stream().map(CompletionOperationRequest::date).collect(Collectors.toSet());
+        Map<CompletionKey, HabitCompletionEntity> rows = new HashMap<>();
+        if (!habits.isEmpty()) {
+            for (HabitCompletionEntity row : completionRepository.findByHabitInAndDateIn(habits.values(), dates)) {
+                rows.put(new CompletionKey(row.getHabit().getId(), row.getDate()), row);
+            }
+        }
+        Set<CompletionKey> initiallyCompleted = rows.entrySet().stream()
+                .filter(entry -> entry.getValue().isCompleted())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        Set<CompletionKey> completed = new HashSet<>(initiallyCompleted);
+
+        List<CompletionOperationResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            CompletionOperationRequest operation = operations.get(i);
+            HabitEntity habit = habits.get(operation.habitId());
+            String error = habit == null ? "Habit not found" : operation.completed() ? dateError(operation.date(), today) : null;
+            CompletionOperationResult.Status status;
+            if (error != null) {
+                status = CompletionOperationResult.Status.REJECTED;
+            } else {
+                CompletionKey key = new CompletionKey(habit.getId(), operation.date());
+                boolean changed = operation.completed() ? completed.add(key) : completed.remove(key);
+                if (changed && operation.completed()) {
+                    rows.computeIfAbsent(key, ignored -> newCompletion(habit, operation.date()));
+                }
+                status = changed ? CompletionOperationResult.Status.APPLIED : CompletionOperationResult.Status.UNCHANGED;
+            }
+            results.add(new CompletionOperationResult(i, operation.habitId(), operation.date(), operation.completed(), status, error));
+        }
+
+        List<HabitCompletionEntity> toDelete = new ArrayList<>();
+        List<HabitCompletionEntity> toSave = new ArrayList<>();
+        Set<HabitEntity> affectedHabits = new LinkedHashSet<>();
+        Set<HabitEntity> completedTodayHabits = new LinkedHashSet<>();
+        for (Map.Entry<CompletionKey, HabitCompletionEntity> entry : rows.entrySet()) {
+            boolean wasCompleted = initiallyCompleted.contains(entry.getKey());
+            boolean isCompleted = completed.contains(entry.getKey());
+            HabitCompletionEntity row = entry.getValue();
+            if (wasCompleted && !isCompleted) {
+                toDelete.add(row);
+                affectedHabits.add(row.getHabit());
+            } else if (!wasCompleted && isCompleted) {
+                row.setCompleted(true);
+                toSave.add(row);
+                affectedHabits.add(row.getHabit());
+                if (row.getDate().equals(today)) {
+                    completedTodayHabits.add(row.getHabit());
+                }
+            }
+        }
+        if (toDelete.isEmpty() && toSave.isEmpty()) {
+            return new BulkCompletionResponse(results);
+        }
+        long seq = changeSequenceService.next(user.getId());
+        toSave.forEach(completion -> completion.setChangeSeq(seq));
+        affectedHabits.forEach(habit -> habit.setChangeSeq(seq));
+        completionRepository.deleteAllInBatch(toDelete);
+        changeSequenceService.tombstones(
+                user.getId(),
+                SyncEntityType.COMPLETION,
+                toDelete.stream().map(HabitCompletionEntity::getId).toList(),
+                seq
+        );
+        completionRepository.saveAll(toSave);
+
+        Map<UUID, List<LocalDate>> datesByHabit = completionRepository.findCompletedDates(affectedHabits).stream()
+                .collect(Collectors.groupingBy(
+                        HabitCompletionRepository.CompletionDateProjection::getHabitId,
+                        Collectors.mapping(HabitCompletionRepository.CompletionDateProjection::getDate, Collectors.toList())
+                ));
+        for (HabitEntity habit : affectedHabits) {
+            List<LocalDate> habitDates = datesByHabit.getOrDefault(habit.getId(), List.of());
+            int currentBefore = streakService.currentStreak(habit, datesBefore(habit, habitDates, toSave, toDelete), today);
+            streakService.recompute(habit, habitDates);
+            boolean completedToday = completedTodayHabits.contains(habit);
+            if (completedToday) {
+                activityService.log(user, habit, ActivityType.COMPLETED, completedMessage(user, habit));
+            }
+            if (completedToday || streakService.currentStreak(habit) > currentBefore) {
+                emitStreakEvents(user, habit);
+            }
+        }
+        userStatsService.recompute(user.getId());
+        todayCache.invalidate(user.getId());
+        completionIndexCache.invalidate(affectedHabits.stream().map(HabitEntity::getId).toList());
+        return new BulkCompletionResponse(results);
     }
 
     @Transactional(readOnly = true)
-    // Что делает: читает и возвращает данные для API или внутренней логики.
-    // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
-    public List<HabitCompletionResponse> history(UserEntity user, UUID habitId) {
+    // Что делает: читает и возвращает страницу истории выполнений привычки.
+    // Как делает: ограничивает выборку диапазоном [from, to] и курсором before (исключительно), размер страницы режет
+    // до app.habits.history-max-page-size; читает на одну строку больше, чтобы понять, есть ли следующая страница.
+    public HabitHistoryResponse history(UserEntity user, UUID habitId, LocalDate from, LocalDate to, LocalDate before, Integer limit) {
         HabitEntity habit = habitService.requireOwnedHabit(user, habitId);
-        return completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
+        int pageSize = limit == null ? historyDefaultPageSize : Math.min(limit, historyMaxPageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        LocalDate start = from == null ? LocalDate.EPOCH : from;
+        LocalDate end = to == null ? LocalDate.now() : to;
+        if (before != null && !before.isAfter(end)) {
+            end = before.minusDays(1);
+        }
+        if (start.isAfter(end)) {
+            return new HabitHistoryResponse(List.of(), null);
+        }
+
+        List<HabitCompletionEntity> rows = completionRepository.findByHabitAndCompletedTrueAndDateBetweenOrderByDateDesc(
+                habit,
+                start,
+                end,
+                PageRequest.of(0, pageSize + 1)
+        );
+        boolean hasMore = rows.size() > pageSize;
+        List<HabitCompletionResponse> items = rows.stream()
+                .limit(pageSize)
                 .map(this::toResponse)
                 .toList();
+        return new HabitHistoryResponse(items, hasMore ? items.get(items.size() - 1).date() : null);
+    }
+
+    @Transactional(readOnly = true)
+    // Что делает: возвращает карты выполнений нескольких привычек за период одним ответом.
+    // Как делает: проверяет период и владение всеми привычками, читает только пары (привычка, дата) одним запросом
+    // и раскладывает их в битовые строки по дню на бит.
+    public HeatmapResponse heatmap(UserEntity user, List<UUID> habitIds, LocalDate from, LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(364) : from;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        if (days > heatmapMaxDays) {
+            throw new IllegalArgumentException("Heatmap range must not exceed " + heatmapMaxDays + " days");
+        }
+        Set<UUID> uniqueIds = new LinkedHashSet<>(habitIds);
+        if (uniqueIds.isEmpty() || uniqueIds.size() > heatmapMaxHabits) {
+            throw new IllegalArgumentException("habitIds must contain from 1 to " + heatmapMaxHabits + " habits");
+        }
+        if (habitService.findOwnedHabits(user, uniqueIds).size() != uniqueIds.size()) {
+            throw new EntityNotFoundException("Habit not found");
+        }
+
+        Map<UUID, byte[]> bitsByHabit = new LinkedHashMap<>();
+        uniqueIds.forEach(id -> bitsByHabit.put(id, new byte[(int) ((days + 7) / 8)]));
+        for (HabitCompletionRepository.CompletionDateProjection row : completionRepository.findCompletedDatesBetween(uniqueIds, start, end)) {
+            int day = (int) ChronoUnit.DAYS.between(start, row.getDate());
+            bitsByHabit.get(row.getHabitId())[day >> 3] |= (byte) (1 << (day & 7));
+        }
+        Base64.Encoder encoder = Base64.getEncoder();
+        List<HabitHeatmapResponse> habits = bitsByHabit.entrySet().stream()
+                .map(entry -> new HabitHeatmapResponse(entry.getKey(), encoder.encodeToString(entry.getValue())))
+                .toList();
+        return new HeatmapResponse(start, (int) days, habits);
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
@@ -84,11 +311,63 @@ public class HabitCompletionService {
         );
     }
 
+    // Что делает: создаёт новую, ещё не сохранённую отметку выполнения.
+    // Как делает: заполняет id, привычку, дату и время создания; флаг completed выставляет вызывающий код.
+    private HabitCompletionEntity newCompletion(HabitEntity habit, LocalDate date) {
+        HabitCompletionEntity completion = new HabitCompletionEntity();
+        completion.setId(UUID.randomUUID());
+        completion.setHabit(habit);
+        completion.setDate(date);
+        completion.setCreatedAt(LocalDateTime.now());
+        return completion;
+    }
+
+    // Что делает: возвращает даты выполнения привычки до применения пакета, от новых к старым.
+    // Как делает: привычке с сохранённым состоянием даты не нужны (серию до пакета даёт состояние), для остальных
+    // убирает из текущих дат сохранённые пакетом отметки и возвращает удалённые.
+    private List<LocalDate> datesBefore(HabitEntity habit, List<LocalDate> dates,
+                                        List<HabitCompletionEntity> saved, List<HabitCompletionEntity> deleted) {
+        if (habit.isStreakInitialized()) {
+            return List.of();
+        }
+        Set<LocalDate> before = new HashSet<>(dates);
+        saved.stream().filter(row -> row.getHabit() == habit).forEach(row -> before.remove(row.getDate()));
+        deleted.stream().filter(row -> row.getHabit() == habit).forEach(row -> before.add(row.getDate()));
+        return before.stream().sorted(Comparator.reverseOrder()).toList();
+    }
+
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
     private void emitStreakEvents(UserEntity user, HabitEntity habit) {
         int current = streakService.currentStreak(habit);
         int best = streakService.bestStreak(habit);
+        emitStreakEvents(user, habit, current, best);
+    }
+
+    // Что делает: проверяет, что дату можно отметить или снять.
+    // Как делает: бросает IllegalArgumentException с причиной из dateError.
+    public void requireAllowedDate(LocalDate date, LocalDate today) {
+        String error = dateError(date, today);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    // Что делает: возвращает причину, по которой дату нельзя отметить, или null.
+    // Как делает: запрещает будущие даты и даты старше окна app.habits.backdate-window-days.
+    private String dateError(LocalDate date, LocalDate today) {
+        if (date.isAfter(today)) {
+            return "Date is in the future";
+        }
+        if (date.isBefore(today.minusDays(backdateWindowDays))) {
+            return "Date is older than " + backdateWindowDays + " days";
+        }
+        return null;
+    }
+
+    // Что делает: публикует события серии и рекорда в ленту.
+    // Как делает: пишет событие серии на каждый седьмой день ежедневной привычки и событие рекорда, когда текущая серия равна лучшей.
+    private void emitStreakEvents(UserEntity user, HabitEntity habit, int current, int best) {
         if (habit.getType() == HabitType.DAILY && current > 0 && current % 7 == 0) {
             activityService.log(user, habit, ActivityType.STREAK, streakMessage(user, habit, current));
         }
@@ -129,4 +408,9 @@ public class HabitCompletionService {
     private boolean isRu(UserEntity user) {
         return user.getLanguage() != null && user.getLanguage().equalsIgnoreCase("ru");
     }
+
+    // Что делает: описывает ключ отметки выполнения внутри пакета.
+    // Как делает: связывает id привычки с датой, как уникальный ключ таблицы habit_completion.
+    private record CompletionKey(UUID habitId, LocalDate date) {
+    }
 }
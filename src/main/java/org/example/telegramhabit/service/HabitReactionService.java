@@ -10,10 +10,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -77,6 +80,39 @@ public class HabitReactionService {
         return summary(currentUser, habit);
     }
 
+    @Transactional(readOnly = true)
+    // Что делает: читает сводки реакций сразу для нескольких привычек.
+    // Как делает: двумя запросами берёт счётчики по эмодзи и свои реакции текущего пользователя и группирует их по привычкам.
+    public Map<UUID, List<HabitReactionSummaryResponse>> summary(Collection<UUID> habitIds, UserEntity currentUser) {
+        if (habitIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Set<String>> mineByHabit = habitReactionRepository.findByHabitIdInAndReactor(habitIds, currentUser).stream()
+                .collect(Collectors.groupingBy(
+                        reaction -> reaction.getHabit().getId(),
+                        Collectors.mapping(HabitReactionEntity::getEmoji, Collectors.toSet())
+                ));
+
+        Map<UUID, List<HabitReactionSummaryResponse>> grouped = habitReactionRepository.countByHabitIds(habitIds).stream()
+                .collect(Collectors.groupingBy(
+                        HabitReactionRepository.HabitReactionCountByHabitProjection::getHabitId,
+                        Collectors.mapping(
+                                item -> new HabitReactionSummaryResponse(
+                                        item.getEmoji(),
+                                        item.getCount(),
+                                        mineByHabit.getOrDefault(item.getHabitId(), Set.of()).contains(item.getEmoji())
+                                ),
+                                Collectors.toList()
+                        )
+                ));
+
+        grouped.replaceAll((id, list) -> list.stream()
+                .sorted(Comparator.comparingLong(HabitReactionSummaryResponse::count).reversed()
+                        .thenComparing(HabitReactionSummaryResponse::emoji))
+                .toList());
+        return grouped;
+    }
+
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
     private List<HabitReactionSummaryResponse> summary(UserEntity currentUser, HabitEntity habit) {
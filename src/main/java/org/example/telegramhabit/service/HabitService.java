@@ -5,15 +5,20 @@ import lombok.RequiredArgsConstructor;
 import org.example.telegramhabit.dto.HabitRequest;
 import org.example.telegramhabit.dto.HabitResponse;
 import org.example.telegramhabit.dto.HabitStatsResponse;
+import org.example.telegramhabit.dto.TodayHabitResponse;
 import org.example.telegramhabit.entity.HabitEntity;
 import org.example.telegramhabit.entity.HabitType;
+import org.example.telegramhabit.entity.SyncEntityType;
 import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.repository.ActivityLogRepository;
 import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.example.telegramhabit.repository.HabitEntryRepository;
 import org.example.telegramhabit.repository.HabitReactionRepository;
 import org.example.telegramhabit.repository.HabitRepository;
+import org.example.telegramhabit.repository.HabitValueRollupRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.DayOfWeek;
@@ -21,8 +26,15 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,25 +45,86 @@ public class HabitService {
     private final HabitRepository habitRepository;
     private final HabitCompletionRepository completionRepository;
     private final HabitReactionRepository habitReactionRepository;
+    private final HabitEntryRepository habitEntryRepository;
+    private final HabitValueRollupRepository habitValueRollupRepository;
     private final ActivityLogRepository activityLogRepository;
     private final StreakService streakService;
     private final AvatarStorageService avatarStorageService;
+    private final UserStatsService userStatsService;
+    private final TodayCache todayCache;
+    private final CompletionIndexCache completionIndexCache;
+    private final ChangeSequenceService changeSequenceService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     // Что делает: читает и возвращает данные для API или внутренней логики.
     // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
     public List<HabitResponse> list(UserEntity user) {
-        return habitRepository.findByUserOrderByCreatedAtDesc(user).stream()
-                .map(this::toResponse)
-                .toList();
+        return toResponses(habitRepository.findByUserOrderByCreatedAtDesc(user));
     }
 
     @Transactional(readOnly = true)
     // Что делает: читает и возвращает данные для API или внутренней логики.
     // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
     public List<HabitResponse> listByOwner(UserEntity owner) {
-        return habitRepository.findByUserOrderByCreatedAtDesc(owner).stream()
-                .map(this::toResponse)
+        return toResponses(habitRepository.findByUserOrderByCreatedAtDesc(owner));
+    }
+
+    @Transactional(readOnly = true)
+    // Что делает: читает привычки пользователя, изменённые после номера изменения.
+    // Как делает: выбирает привычки с change_seq больше заданного; он обновляется и при изменении отметок привычки,
+    // поэтому серии в ответе актуальны.
+    public List<HabitResponse> listChangedSince(UserEntity user, long since) {
+        return toResponses(habitRepository.findByUserAndChangeSeqGreaterThanOrderByCreatedAtDesc(user, since));
+    }
+
+    @Transactional(readOnly = true)
+    // Что делает: читает активные привычки владельца вместе со статистикой каждой.
+    // Как делает: одним запросом берёт привычки, следующими — даты выполнения всех привычек сразу, только за текущие
+    // неделю и месяц (серии берутся из сохранённого состояния), и считает прогресс в памяти, без запросов на каждую привычку.
+    public List<HabitWithStats> activeWithStatsByOwner(UserEntity owner) {
+        List<HabitEntity> habits = habitRepository.findByUserAndArchivedFalseOrderByCreatedAtDesc(owner);
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        YearMonth month = YearMonth.from(today);
+        Map<UUID, List<LocalDate>> datesByHabit = completedDatesByHabit(
+                habits,
+                weekStart.isBefore(month.atDay(1)) ? weekStart : month.atDay(1),
+                weekStart.plusDays(6).isAfter(month.atEndOfMonth()) ? weekStart.plusDays(6) : month.atEndOfMonth()
+        );
+        return habits.stream()
+                .map(habit -> {
+                    List<LocalDate> dates = datesByHabit.getOrDefault(habit.getId(), List.of());
+                    return new HabitWithStats(toResponse(habit, dates, today), statsFromDates(habit, dates, today));
+                })
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    // Что делает: читает активные привычки владельца для экрана «Сегодня».
+    // Как делает: берёт привычки и даты их выполнения только за текущую неделю (серии — из сохранённого состояния),
+    // а отметку за сегодня, дни текущей недели и недельный прогресс считает в памяти.
+    public List<TodayHabitResponse> todayByOwner(UserEntity owner, LocalDate today) {
+        List<HabitEntity> habits = habitRepository.findByUserAndArchivedFalseOrderByCreatedAtDesc(owner);
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate weekEnd = weekStart.plusDays(6);
+        Map<UUID, List<LocalDate>> datesByHabit = completedDatesByHabit(habits, weekStart, weekEnd);
+        return habits.stream()
+                .map(habit -> {
+                    List<LocalDate> dates = datesByHabit.getOrDefault(habit.getId(), List.of());
+                    List<LocalDate> weekDates = dates.stream()
+                            .filter(date -> !date.isBefore(weekStart) && !date.isAfter(weekEnd))
+                            .toList();
+                    int targetWeek = habit.getType() == HabitType.DAILY ? 7 : habit.getTimesPerWeek();
+                    return new TodayHabitResponse(
+                            toResponse(habit, dates, today),
+                            weekDates.contains(today),
+                            weekDates,
+                            weekDates.size(),
+                            targetWeek,
+                            percent(weekDates.size(), targetWeek)
+                    );
+                })
                 .toList();
     }
 
@@ -66,10 +139,15 @@ public class HabitService {
         habit.setTitle(request.title());
         habit.setType(request.type());
         habit.setTimesPerWeek(request.type() == HabitType.WEEKLY ? request.timesPerWeek() : null);
+        habit.setUnit(request.unit());
+        habit.setDailyTarget(request.dailyTarget());
         habit.setColor(request.color());
         habit.setIcon(request.icon());
         habit.setArchived(request.archived());
         habit.setCreatedAt(LocalDateTime.now());
+        streakService.recompute(habit, List.of());
+        habit.setChangeSeq(changeSequenceService.next(user.getId()));
+        todayCache.invalidate(user.getId());
         return toResponse(habitRepository.save(habit));
     }
 
@@ -78,13 +156,23 @@ public class HabitService {
     // Как делает: применяет правила преобразования, затем сохраняет или возвращает обновлённые данные.
     public HabitResponse update(UserEntity user, UUID habitId, HabitRequest request) {
         validateRequest(request);
-        HabitEntity habit = requireOwnedHabit(user, habitId);
+        HabitEntity habit = requireOwnedHabitForUpdate(user, habitId);
+        Integer timesPerWeek = request.type() == HabitType.WEEKLY ? request.timesPerWeek() : null;
+        boolean streakRulesChanged = habit.getType() != request.type() || !Objects.equals(habit.getTimesPerWeek(), timesPerWeek);
         habit.setTitle(request.title());
         habit.setType(request.type());
-        habit.setTimesPerWeek(request.type() == HabitType.WEEKLY ? request.timesPerWeek() : null);
+        habit.setTimesPerWeek(timesPerWeek);
+        habit.setUnit(request.unit());
+        habit.setDailyTarget(request.dailyTarget());
         habit.setColor(request.color());
         habit.setIcon(request.icon());
         habit.setArchived(request.archived());
+        if (streakRulesChanged) {
+            streakService.recompute(habit);
+        }
+        habit.setChangeSeq(changeSequenceService.next(user.getId()));
+        todayCache.invalidate(user.getId());
+        completionIndexCache.invalidate(List.of(habit.getId()));
         return toResponse(habitRepository.save(habit));
     }
 
@@ -93,10 +181,17 @@ public class HabitService {
     // Как делает: проверяет доступ и существование сущности, затем удаляет связанные и целевые записи.
     public void delete(UserEntity user, UUID habitId) {
         HabitEntity habit = requireOwnedHabit(user, habitId);
+        long seq = changeSequenceService.next(user.getId());
         completionRepository.deleteByHabit(habit);
+        habitEntryRepository.deleteByHabit(habit);
+        habitValueRollupRepository.deleteByHabit(habit);
         habitReactionRepository.deleteByHabit(habit);
         activityLogRepository.deleteByHabit(habit);
         habitRepository.delete(habit);
+        changeSequenceService.tombstones(user.getId(), SyncEntityType.HABIT, List.of(habit.getId()), seq);
+        userStatsService.recompute(user.getId());
+        todayCache.invalidate(user.getId());
+        completionIndexCache.invalidate(List.of(habit.getId()));
     }
 
     @Transactional(readOnly = true)
@@ -116,22 +211,28 @@ public class HabitService {
     }
 
     // Что делает: читает и возвращает данные для API или внутренней логики.
-    // Как делает: делает запрос к репозиторию, при необходимости фильтрует и маппит результат.
+    // Как делает: одним запросом читает даты выполнения привычки и считает по ним всю статистику.
     private HabitStatsResponse statsForHabit(HabitEntity habit) {
-        LocalDate now = LocalDate.now();
+        List<LocalDate> dates = completedDatesByHabit(List.of(habit)).getOrDefault(habit.getId(), List.of());
+        return statsFromDates(habit, dates, LocalDate.now());
+    }
+
+    // Что делает: считает статистику привычки по уже загруженным датам выполнения.
+    // Как делает: считает выполнения текущей недели и месяца, цели по типу привычки и серии через StreakService.
+    private HabitStatsResponse statsFromDates(HabitEntity habit, List<LocalDate> descDates, LocalDate now) {
         LocalDate weekStart = now.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate weekEnd = weekStart.plusDays(6);
         YearMonth month = YearMonth.from(now);
         LocalDate monthStart = month.atDay(1);
         LocalDate monthEnd = month.atEndOfMonth();
 
-        int completedWeek = completionRepository.findByHabitAndDateBetweenAndCompletedTrue(habit, weekStart, weekEnd).size();
-        int completedMonth = completionRepository.findByHabitAndDateBetweenAndCompletedTrue(habit, monthStart, monthEnd).size();
+        int completedWeek = countBetween(descDates, weekStart, weekEnd);
+        int completedMonth = countBetween(descDates, monthStart, monthEnd);
         int targetWeek = habit.getType() == HabitType.DAILY ? 7 : habit.getTimesPerWeek();
         int targetMonth = habit.getType() == HabitType.DAILY ? month.lengthOfMonth() : habit.getTimesPerWeek() * 4;
 
-        int currentStreak = streakService.currentStreak(habit);
-        int bestStreak = streakService.bestStreak(habit);
+        int currentStreak = streakService.currentStreak(habit, descDates, now);
+        int bestStreak = streakService.bestStreak(habit, descDates, now);
         return new HabitStatsResponse(
                 completedWeek,
                 targetWeek,
@@ -144,6 +245,56 @@ public class HabitService {
         );
     }
 
+    // Что делает: читает даты выполнения нескольких привычек одним запросом.
+    // Как делает: группирует даты по id привычки, сохраняя порядок от новых к старым.
+    private Map<UUID, List<LocalDate>> completedDatesByHabit(Collection<HabitEntity> habits) {
+        if (habits.isEmpty()) {
+            return Map.of();
+        }
+        return completionRepository.findCompletedDates(habits).stream()
+                .collect(Collectors.groupingBy(
+                        HabitCompletionRepository.CompletionDateProjection::getHabitId,
+                        Collectors.mapping(HabitCompletionRepository.CompletionDateProjection::getDate, Collectors.toList())
+                ));
+    }
+
+    // Что делает: читает даты выполнения, нужные для прогресса за период и серий.
+    // Как делает: привычкам с сохранённым состоянием серии хватает дат из [from, to], их читает одним запросом по
+    // периоду; всю историю читает только для привычек, у которых состояние ещё не посчитано. Даты — от новых к старым.
+    private Map<UUID, List<LocalDate>> completedDatesByHabit(Collection<HabitEntity> habits, LocalDate from, LocalDate to) {
+        Map<UUID, List<LocalDate>> result = new HashMap<>(completedDatesByHabit(habits.stream()
+                .filter(habit -> !habit.isStreakInitialized())
+                .toList()));
+        List<UUID> initialized = habits.stream()
+                .filter(HabitEntity::isStreakInitialized)
+                .map(HabitEntity::getId)
+                .toList();
+        if (!initialized.isEmpty()) {
+            completionRepository.findCompletedDatesBetween(initialized, from, to).stream()
+                    .collect(Collectors.groupingBy(
+                            HabitCompletionRepository.CompletionDateProjection::getHabitId,
+                            Collectors.mapping(HabitCompletionRepository.CompletionDateProjection::getDate, Collectors.toCollection(ArrayList::new))
+                    ))
+                    .forEach((habitId, dates) -> {
+                        dates.sort(Comparator.reverseOrder());
+                        result.put(habitId, dates);
+                    });
+        }
+        return result;
+    }
+
+    // Что делает: считает даты, попадающие в период.
+    // Как делает: проверяет каждую дату на вхождение в границы включительно.
+    private int countBetween(List<LocalDate> dates, LocalDate from, LocalDate to) {
+        int count = 0;
+        for (LocalDate date : dates) {
+            if (!date.isBefore(from) && !date.isAfter(to)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     // Что делает: проверяет входные данные и извлекает нужные значения.
     // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
     public HabitEntity requireOwnedHabit(UserEntity user, UUID habitId) {
@@ -151,30 +302,87 @@ public class HabitService {
                 .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
     }
 
-    @Transactional
+    // Что делает: проверяет входные данные и извлекает нужные значения.
+    // Как делает: читает привычку пользователя под блокировкой строки, чтобы изменения её отметок и серии шли по очереди.
+    public HabitEntity requireOwnedHabitForUpdate(UserEntity user, UUID habitId) {
+        return habitRepository.findByIdAndUserForUpdate(habitId, user)
+                .orElseThrow(() -> new EntityNotFoundException("Habit not found"));
+    }
+
+    // Что делает: читает несколько привычек пользователя одним запросом.
+    // Как делает: выбирает привычки по списку id только среди принадлежащих пользователю; чужие и несуществующие пропускает.
+    public Map<UUID, HabitEntity> findOwnedHabits(UserEntity user, Collection<UUID> habitIds) {
+        if (habitIds.isEmpty()) {
+            return Map.of();
+        }
+        return habitRepository.findByUserAndIdIn(user, habitIds).stream()
+                .collect(Collectors.toMap(HabitEntity::getId, habit -> habit));
+    }
+
+    // Что делает: читает и блокирует несколько привычек пользователя одним запросом.
+    // Как делает: выбирает привычки по списку id только среди принадлежащих пользователю; чужие и несуществующие пропускает.
+    public Map<UUID, HabitEntity> findOwnedHabitsForUpdate(UserEntity user, Collection<UUID> habitIds) {
+        if (habitIds.isEmpty()) {
+            return Map.of();
+        }
+        return habitRepository.findByUserAndIdInForUpdate(user, habitIds).stream()
+                .collect(Collectors.toMap(HabitEntity::getId, habit -> habit));
+    }
+
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
-    // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
+    // Как делает: проверяет владение привычкой, сохраняет картинку вне транзакции (запись файлов и варианты не держат
+    // соединение с БД) и только затем короткой транзакцией записывает URL в привычку.
     public HabitResponse uploadImage(UserEntity user, UUID habitId, MultipartFile file) {
-        HabitEntity habit = requireOwnedHabit(user, habitId);
+        requireOwnedHabit(user, habitId);
         String imageUrl = avatarStorageService.saveHabitImage(file);
-        habit.setImageUrl(imageUrl);
-        return toResponse(habitRepository.save(habit));
+        return transactionTemplate.execute(status -> {
+            HabitEntity habit = requireOwnedHabit(user, habitId);
+            habit.setImageUrl(imageUrl);
+            habit.setChangeSeq(changeSequenceService.next(user.getId()));
+            todayCache.invalidate(user.getId());
+            return toResponse(habitRepository.save(habit));
+        });
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
     private HabitResponse toResponse(HabitEntity habit) {
+        return toResponses(List.of(habit)).get(0);
+    }
+
+    // Что делает: маппит список привычек в ответ API.
+    // Как делает: серии берёт из сохранённого состояния; даты выполнения читает одним запросом только для привычек,
+    // у которых состояние ещё не посчитано.
+    private List<HabitResponse> toResponses(List<HabitEntity> habits) {
+        Map<UUID, List<LocalDate>> datesByHabit = completedDatesByHabit(habits.stream()
+                .filter(habit -> !habit.isStreakInitialized())
+                .toList());
+        LocalDate today = LocalDate.now();
+        return habits.stream()
+                .map(habit -> toResponse(habit, datesByHabit.getOrDefault(habit.getId(), List.of()), today))
+                .toList();
+    }
+
+    // Что делает: маппит привычку в ответ API по уже загруженным датам выполнения.
+    // Как делает: считает текущую и лучшую серии через StreakService без обращения к БД и добавляет последнюю серию,
+    // чтобы реплика клиента могла сама пересчитать текущую серию, когда наступит следующий день.
+    private HabitResponse toResponse(HabitEntity habit, List<LocalDate> descDates, LocalDate today) {
+        StreakService.StreakState state = streakService.state(habit, descDates);
         return new HabitResponse(
                 habit.getId(),
                 habit.getTitle(),
                 habit.getType(),
                 habit.getTimesPerWeek(),
+                habit.getUnit(),
+                habit.getDailyTarget(),
                 habit.getColor(),
                 habit.getIcon(),
                 habit.getImageUrl(),
                 habit.isArchived(),
-                streakService.currentStreak(habit),
-                streakService.bestStreak(habit),
+                streakService.currentStreak(habit, descDates, today),
+                streakService.bestStreak(habit, descDates, today),
+                state.latestRunEnd(),
+                state.latestRunLength(),
                 habit.getCreatedAt()
         );
     }
@@ -191,6 +399,9 @@ public class HabitService {
         if (request.type() == HabitType.WEEKLY && (request.timesPerWeek() < 1 || request.timesPerWeek() > 7)) {
             throw new IllegalArgumentException("timesPerWeek must be between 1 and 7 for WEEKLY habit");
         }
+        if (request.unit() != null && request.dailyTarget() == null) {
+            throw new IllegalArgumentException("unit requires dailyTarget");
+        }
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
@@ -201,4 +412,9 @@ public class HabitService {
         }
         return Math.min(100, (int) Math.round((completed * 100.0) / target));
     }
+
+    // Что делает: описывает привычку вместе с её статистикой.
+    // Как делает: связывает ответ по привычке и ответ по статистике.
+    public record HabitWithStats(HabitResponse habit, HabitStatsResponse stats) {
+    }
 }
@@ -0,0 +1,158 @@
+package org.example.telegramhabit.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.TrendBucket;
+import org.example.telegramhabit.dto.TrendPointResponse;
+import org.example.telegramhabit.dto.TrendSeriesResponse;
+import org.example.telegramhabit.dto.TrendsResponse;
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: строит тренды выполнения привычек за произвольные диапазоны для графиков.
+// Как делает: каждая точка — два вычитания в закэшированном индексе накопительных сумм привычки;
+// отметки читаются из БД одним запросом только для привычек, чьих индексов ещё нет в кэше.
+public class HabitTrendsService {
+
+    private final HabitService habitService;
+    private final HabitCompletionRepository completionRepository;
+    private final CompletionIndexCache indexCache;
+
+    @Value("${app.analytics.max-points:400}")
+    private int maxPoints;
+
+    @Value("${app.analytics.max-habits:50}")
+    private int maxHabits;
+
+    @Transactional(readOnly = true)
+    // Что делает: возвращает ряды трендов по нескольким привычкам за диапазон.
+    // Как делает: делит [from, to] на календарные корзины (по умолчанию последние 90 дней по неделям) и для каждой
+    // привычки считает выполненные и возможные периоды в каждой корзине и за весь диапазон.
+    public TrendsResponse trends(UserEntity user, List<UUID> habitIds, LocalDate from, LocalDate to, TrendBucket bucket) {
+        LocalDate today = LocalDate.now();
+        LocalDate end = to == null ? today : to;
+        LocalDate start = from == null ? end.minusDays(89) : from;
+        TrendBucket size = bucket == null ? TrendBucket.WEEK : bucket;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Set<UUID> uniqueIds = new LinkedHashSet<>(habitIds);
+        if (uniqueIds.isEmpty() || uniqueIds.size() > maxHabits) {
+            throw new IllegalArgumentException("habitIds must contain from 1 to " + maxHabits + " habits");
+        }
+        Map<UUID, HabitEntity> habits = habitService.findOwnedHabits(user, uniqueIds);
+        if (habits.size() != uniqueIds.size()) {
+            throw new EntityNotFoundException("Habit not found");
+        }
+        List<LocalDate[]> buckets = buckets(start, end, size);
+        Map<UUID, CompletionIndex> indexes = indexes(habits.values(), today);
+
+        List<TrendSeriesResponse> series = new ArrayList<>(uniqueIds.size());
+        for (UUID habitId : uniqueIds) {
+            CompletionIndex index = indexes.get(habitId);
+            List<TrendPointResponse> points = buckets.stream()
+                    .map(range -> point(index, range[0], range[1], today))
+                    .toList();
+            series.add(new TrendSeriesResponse(habitId, habits.get(habitId).getType(), point(index, start, end, today), points));
+        }
+        return new TrendsResponse(start, end, size, series);
+    }
+
+    // Что делает: возвращает индексы накопительных сумм для привычек.
+    // Как делает: берёт индексы из кэша, а для отсутствующих или построенных по старым правилам читает отметки
+    // одним запросом на все такие привычки, строит индексы и кладёт их в кэш, если их не сбросили во время чтения.
+    private Map<UUID, CompletionIndex> indexes(Iterable<HabitEntity> habits, LocalDate today) {
+        Map<UUID, HabitEntity> byId = new HashMap<>();
+        habits.forEach(habit -> byId.put(habit.getId(), habit));
+        Map<UUID, CompletionIndex> result = new HashMap<>(indexCache.findAll(byId.keySet()));
+        result.entrySet().removeIf(entry -> !entry.getValue().matches(byId.get(entry.getKey())));
+
+        List<HabitEntity> missing = byId.values().stream()
+                .filter(habit -> !result.containsKey(habit.getId()))
+                .toList();
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long stamp = indexCache.stamp();
+        Map<UUID, List<LocalDate>> datesByHabit = completionRepository.findCompletedDates(missing).stream()
+                .collect(Collectors.groupingBy(
+                        HabitCompletionRepository.CompletionDateProjection::getHabitId,
+                        Collectors.mapping(HabitCompletionRepository.CompletionDateProjection::getDate, Collectors.toList())
+                ));
+        for (HabitEntity habit : missing) {
+            CompletionIndex index = CompletionIndex.build(habit, datesByHabit.getOrDefault(habit.getId(), List.of()), today);
+            indexCache.put(habit.getId(), index, stamp);
+            result.put(habit.getId(), index);
+        }
+        return result;
+    }
+
+    // Что делает: делит диапазон на календарные корзины.
+    // Как делает: первая корзина начинается с начала календарного периода from, крайние корзины обрезаются
+    // по границам диапазона; слишком мелкое деление отклоняет, чтобы ответ оставался ограниченным.
+    private List<LocalDate[]> buckets(LocalDate from, LocalDate to, TrendBucket bucket) {
+        List<LocalDate[]> buckets = new ArrayList<>();
+        LocalDate cursor = align(from, bucket);
+        while (!cursor.isAfter(to)) {
+            LocalDate next = next(cursor, bucket);
+            if (buckets.size() == maxPoints) {
+                throw new IllegalArgumentException("Range has more than " + maxPoints + " points, use a larger bucket");
+            }
+            buckets.add(new LocalDate[]{cursor.isBefore(from) ? from : cursor, next.minusDays(1).isAfter(to) ? to : next.minusDays(1)});
+            cursor = next;
+        }
+        return buckets;
+    }
+
+    // Что делает: считает одну точку графика.
+    // Как делает: берёт выполненные и возможные периоды из индекса и процент выполнения.
+    private TrendPointResponse point(CompletionIndex index, LocalDate from, LocalDate to, LocalDate today) {
+        int completed = index.completed(from, to);
+        int possible = index.possible(from, to, today);
+        int rate = possible == 0 ? 0 : (int) Math.round(completed * 100.0 / possible);
+        return new TrendPointResponse(from, to, completed, possible, rate);
+    }
+
+    // Что делает: возвращает начало календарного периода, в который попадает дата.
+    // Как делает: день — сама дата, неделя — понедельник, месяц — первое число, квартал — первое число
+    // первого месяца квартала, год — 1 января.
+    private LocalDate align(LocalDate date, TrendBucket bucket) {
+        return switch (bucket) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case QUARTER -> date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    // Что делает: возвращает начало следующего календарного периода.
+    // Как делает: прибавляет к выровненному началу день, неделю, месяц, три месяца или год.
+    private LocalDate next(LocalDate start, TrendBucket bucket) {
+        return switch (bucket) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+            case QUARTER -> start.plusMonths(3);
+            case YEAR -> start.plusYears(1);
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.telegramhabit.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.HabitEntryRequest;
+import org.example.telegramhabit.dto.HabitEntryResponse;
+import org.example.telegramhabit.dto.HabitValuesResponse;
+import org.example.telegramhabit.dto.PeriodValueResponse;
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitEntryEntity;
+import org.example.telegramhabit.entity.HabitType;
+import org.example.telegramhabit.entity.HabitValueRollupEntity;
+import org.example.telegramhabit.entity.RollupPeriod;
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.repository.HabitEntryRepository;
+import org.example.telegramhabit.repository.HabitValueRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: ведёт записи количеств количественных привычек и их суммы по дням, неделям и месяцам.
+// Как делает: на каждую запись или удаление под блокировкой привычки правит три строки habit_value_rollup,
+// а статистику читает только из них; день отмечается выполненным, когда его сумма достигает дневной цели.
+public class HabitValueService {
+
+    private final HabitService habitService;
+    private final HabitCompletionService completionService;
+    private final HabitEntryRepository entryRepository;
+    private final HabitValueRollupRepository rollupRepository;
+
+    @Transactional
+    // Что делает: добавляет запись количества и возвращает обновлённые суммы.
+    // Как делает: сохраняет запись, прибавляет её к суммам дня, недели и месяца и, если сумма дня впервые
+    // дошла до цели, отмечает день выполненным через обычный путь отметки (серии, лента, статистика).
+    public HabitEntryResponse addEntry(UserEntity user, UUID habitId, HabitEntryRequest request) {
+        LocalDate date = request.date() == null ? LocalDate.now() : request.date();
+        completionService.requireAllowedDate(date, LocalDate.now());
+        HabitEntity habit = requireQuantitative(habitService.requireOwnedHabitForUpdate(user, habitId));
+
+        HabitEntryEntity entry = new HabitEntryEntity();
+        entry.setId(UUID.randomUUID());
+        entry.setHabit(habit);
+        entry.setDate(date);
+        entry.setAmount(request.amount());
+        entry.setCreatedAt(LocalDateTime.now());
+        entryRepository.save(entry);
+
+        Map<RollupPeriod, HabitValueRollupEntity> rollups = applyToRollups(habit, date, request.amount(), 1);
+        long dayTotal = rollups.get(RollupPeriod.DAY).getTotal();
+        if (dayTotal - request.amount() < habit.getDailyTarget() && dayTotal >= habit.getDailyTarget()) {
+            completionService.complete(user, habitId, date);
+        }
+        return new HabitEntryResponse(
+                entry.getId(),
+                habit.getId(),
+                entry.getDate(),
+                entry.getAmount(),
+                entry.getCreatedAt(),
+                toResponse(habit, date, rollups)
+        );
+    }
+
+    @Transactional
+    // Что делает: удаляет запись количества.
+    // Как делает: вычитает её из сумм дня, недели и месяца и снимает отметку дня, если сумма опустилась ниже цели.
+    public void deleteEntry(UserEntity user, UUID habitId, UUID entryId) {
+        HabitEntity habit = requireQuantitative(habitService.requireOwnedHabitForUpdate(user, habitId));
+        HabitEntryEntity entry = entryRepository.findByIdAndHabit(entryId, habit)
+                .orElseThrow(() -> new EntityNotFoundException("Entry not found"));
+        entryRepository.delete(entry);
+
+        Map<RollupPeriod, HabitValueRollupEntity> rollups = applyToRollups(habit, entry.getDate(), -entry.getAmount(), -1);
+        long dayTotal = rollups.get(RollupPeriod.DAY).getTotal();
+        if (dayTotal + entry.getAmount() >= habit.getDailyTarget() && dayTotal < habit.getDailyTarget()) {
+            completionService.uncomplete(user, habitId, entry.getDate());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    // Что делает: возвращает суммы количественной привычки за день, неделю и месяц даты.
+    // Как делает: читает не больше трёх строк habit_value_rollup одним запросом, без суммирования записей.
+    public HabitValuesResponse values(UserEntity user, UUID habitId, LocalDate date) {
+        LocalDate day = date == null ? LocalDate.now() : date;
+        HabitEntity habit = requireQuantitative(habitService.requireOwnedHabit(user, habitId));
+        return toResponse(habit, day, loadRollups(habit, day));
+    }
+
+    // Что делает: прибавляет количество к суммам дня, недели и месяца даты.
+    // Как делает: читает три строки одним запросом, недостающие создаёт, пустые после удаления удаляет;
+    // вызывается под блокировкой привычки, поэтому чтение-изменение-запись не теряет параллельные записи.
+    private Map<RollupPeriod, HabitValueRollupEntity> applyToRollups(HabitEntity habit, LocalDate date, long amount, int entries) {
+        Map<RollupPeriod, HabitValueRollupEntity> rollups = loadRollups(habit, date);
+        List<HabitValueRollupEntity> changed = new ArrayList<>();
+        List<HabitValueRollupEntity> empty = new ArrayList<>();
+        for (RollupPeriod period : RollupPeriod.values()) {
+            HabitValueRollupEntity rollup = rollups.computeIfAbsent(period, key -> newRollup(habit, key, periodStart(key, date)));
+            rollup.setTotal(rollup.getTotal() + amount);
+            rollup.setEntries(rollup.getEntries() + entries);
+            (rollup.getEntries() > 0 ? changed : empty).add(rollup);
+        }
+        rollupRepository.saveAll(changed);
+        rollupRepository.deleteAll(empty);
+        return rollups;
+    }
+
+    // Что делает: читает суммы дня, недели и месяца даты.
+    // Как делает: один запрос по началам трёх периодов, затем оставляет строки, у которых период совпадает с началом.
+    private Map<RollupPeriod, HabitValueRollupEntity> loadRollups(HabitEntity habit, LocalDate date) {
+        Map<RollupPeriod, LocalDate> starts = new EnumMap<>(RollupPeriod.class);
+        for (RollupPeriod period : RollupPeriod.values()) {
+            starts.put(period, periodStart(period, date));
+        }
+        Map<RollupPeriod, HabitValueRollupEntity> rollups = new EnumMap<>(RollupPeriod.class);
+        for (HabitValueRollupEntity rollup : rollupRepository.findByHabitAndPeriodStartIn(habit, starts.values())) {
+            if (rollup.getPeriodStart().equals(starts.get(rollup.getPeriod()))) {
+                rollups.put(rollup.getPeriod(), rollup);
+            }
+        }
+        return rollups;
+    }
+
+    // Что делает: создаёт пустую строку суммы периода.
+    // Как делает: заполняет привычку, период и его начало нулевыми суммой и числом записей.
+    private HabitValueRollupEntity newRollup(HabitEntity habit, RollupPeriod period, LocalDate periodStart) {
+        HabitValueRollupEntity rollup = new HabitValueRollupEntity();
+        rollup.setId(UUID.randomUUID());
+        rollup.setHabit(habit);
+        rollup.setPeriod(period);
+        rollup.setPeriodStart(periodStart);
+        return rollup;
+    }
+
+    // Что делает: маппит суммы периодов в ответ API.
+    // Как делает: цель недели — дневная цель на 7 дней (для недельной привычки — на timesPerWeek),
+    // цель месяца — на число дней месяца (для недельной — на timesPerWeek * 4, как в обычной статистике).
+    private HabitValuesResponse toResponse(HabitEntity habit, LocalDate date, Map<RollupPeriod, HabitValueRollupEntity> rollups) {
+        long dailyTarget = habit.getDailyTarget();
+        boolean weekly = habit.getType() == HabitType.WEEKLY;
+        long weekTarget = dailyTarget * (weekly ? habit.getTimesPerWeek() : 7);
+        long monthTarget = dailyTarget * (weekly ? habit.getTimesPerWeek() * 4L : YearMonth.from(date).lengthOfMonth());
+        return new HabitValuesResponse(
+                date,
+                habit.getUnit(),
+                dailyTarget,
+                periodValue(rollups.get(RollupPeriod.DAY), RollupPeriod.DAY, date, dailyTarget),
+                periodValue(rollups.get(RollupPeriod.WEEK), RollupPeriod.WEEK, date, weekTarget),
+                periodValue(rollups.get(RollupPeriod.MONTH), RollupPeriod.MONTH, date, monthTarget)
+        );
+    }
+
+    // Что делает: маппит сумму одного периода в ответ API.
+    // Как делает: отсутствующую строку считает нулевой суммой; процент ограничен сотней.
+    private PeriodValueResponse periodValue(HabitValueRollupEntity rollup, RollupPeriod period, LocalDate date, long target) {
+        long total = rollup == null ? 0 : rollup.getTotal();
+        int entries = rollup == null ? 0 : rollup.getEntries();
+        int percent = (int) Math.min(100, Math.round(total * 100.0 / target));
+        return new PeriodValueResponse(periodStart(period, date), total, target, entries, percent);
+    }
+
+    // Что делает: проверяет, что привычка количественная.
+    // Как делает: количественной считается привычка с дневной целью, иначе бросает IllegalArgumentException.
+    private HabitEntity requireQuantitative(HabitEntity habit) {
+        if (habit.getDailyTarget() == null) {
+            throw new IllegalArgumentException("Habit has no daily target");
+        }
+        return habit;
+    }
+
+    // Что делает: возвращает начало периода, в который попадает дата.
+    // Как делает: день — сама дата, неделя — понедельник, месяц — первое число.
+    private LocalDate periodStart(RollupPeriod period, LocalDate date) {
+        return switch (period) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.telegramhabit.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+// Что делает: хранит ответы на мутирующие запросы с заголовком Idempotency-Key, чтобы повтор не выполнялся заново.
+// Как делает: держит Caffeine-кэш с TTL и бюджетом в байтах; ключ сначала захватывается как «в работе»,
+// а после успешного ответа в запись кладутся статус, тип и тело ответа.
+public class IdempotencyStore {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final Cache<Key, Entry> entries;
+    private final int maxBodyBytes;
+
+    // Что делает: создаёт хранилище с настройками из конфигурации.
+    // Как делает: задаёт время жизни ключа, общий бюджет по размеру тел и лимит на одно тело.
+    public IdempotencyStore(
+            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${app.idempotency.max-mb:16}") long maxMb,
+            @Value("${app.idempotency.max-body-kb:64}") int maxBodyKb
+    ) {
+        this.maxBodyBytes = maxBodyKb * 1024;
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumWeight(maxMb * 1024L * 1024L)
+                .weigher((Key key, Entry entry) -> ENTRY_OVERHEAD_BYTES
+                        + (entry.response() == null ? 0 : entry.response().body().length))
+                .build();
+    }
+
+    // Что делает: захватывает ключ под выполнение запроса.
+    // Как делает: атомарно кладёт запись «в работе»; если ключ уже занят, возвращает существующую запись,
+    // и тогда запрос выполнять не нужно.
+    public Optional<Entry> claim(UUID userId, String idempotencyKey, String fingerprint) {
+        return Optional.ofNullable(entries.asMap().putIfAbsent(new Key(userId, idempotencyKey), new Entry(fingerprint, null, null)));
+    }
+
+    // Что делает: сохраняет ответ выполненного запроса под захваченным ключом.
+    // Как делает: заменяет запись «в работе» записью с хэшем тела запроса и ответом; слишком большой ответ не хранит
+    // и освобождает ключ.
+    public void complete(UUID userId, String idempotencyKey, String fingerprint, String bodyHash, StoredResponse response) {
+        Key key = new Key(userId, idempotencyKey);
+        if (response.body().length > maxBodyBytes) {
+            entries.invalidate(key);
+            return;
+        }
+        entries.put(key, new Entry(fingerprint, bodyHash, response));
+    }
+
+    // Что делает: освобождает ключ, если запрос завершился неуспешно.
+    // Как делает: удаляет запись, чтобы повтор с тем же ключом выполнился заново.
+    public void release(UUID userId, String idempotencyKey) {
+        entries.invalidate(new Key(userId, idempotencyKey));
+    }
+
+    // Что делает: описывает ключ хранилища.
+    // Как делает: связывает пользователя с его Idempotency-Key, чтобы ключи разных пользователей не пересекались.
+    private record Key(UUID userId, String idempotencyKey) {
+    }
+
+    // Что делает: описывает запись хранилища.
+    // Как делает: хранит отпечаток запроса (метод и путь), SHA-256 тела запроса (нет для multipart и форм) и ответ;
+    // хэш и ответ пустые, пока запрос ещё выполняется.
+    public record Entry(String fingerprint, String bodyHash, StoredResponse response) {
+    }
+
+    // Что делает: описывает сохранённый ответ.
+    // Как делает: хранит HTTP-статус, Content-Type и тело ответа.
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.telegramhabit.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+@Slf4j
+// Что делает: держит в памяти содержимое самых запрашиваемых картинок (в основном аватаров и их миниатюр).
+// Как делает: Caffeine-кэш (W-TinyLFU) с бюджетом в байтах по суммарному размеру содержимого и учётом статистики попаданий.
+public class ImageCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final Cache<Key, CachedImage> images;
+    private final long maxEntryBytes;
+
+    // Что делает: создаёт кэш с бюджетом из конфигурации.
+    // Как делает: задаёт maximumWeight в байтах и weigher по длине содержимого; слишком большие картинки в кэш не попадают.
+    public ImageCache(
+            @Value("${app.storage.image-cache-max-mb:32}") long maxMb,
+            @Value("${app.storage.image-cache-max-entry-kb:512}") long maxEntryKb
+    ) {
+        this.maxEntryBytes = maxEntryKb * 1024L;
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maxMb * 1024L * 1024L)
+                .weigher((Key key, CachedImage image) -> image.data().length + ENTRY_OVERHEAD_BYTES)
+                .recordStats()
+                .build();
+    }
+
+    // Что делает: ищет закэшированное содержимое картинки для запрошенного размера.
+    // Как делает: берёт запись по паре (id картинки, размер), не обращаясь к БД и хранилищу.
+    public Optional<CachedImage> find(UUID imageId, Integer sizePx) {
+        return Optional.ofNullable(images.getIfPresent(new Key(imageId, normalize(sizePx))));
+    }
+
+    // Что делает: сообщает, стоит ли класть картинку такого размера в кэш.
+    // Как делает: сравнивает размер содержимого с лимитом на одну запись.
+    public boolean accepts(long sizeBytes) {
+        return sizeBytes <= maxEntryBytes;
+    }
+
+    // Что делает: кладёт содержимое картинки в кэш.
+    // Как делает: сохраняет запись под ключом (id картинки, размер), если она проходит по лимиту на запись.
+    public void put(UUID imageId, Integer sizePx, CachedImage image) {
+        if (accepts(image.data().length)) {
+            images.put(new Key(imageId, normalize(sizePx)), image);
+        }
+    }
+
+    // Что делает: выкидывает из кэша все размеры картинки.
+    // Как делает: удаляет ключи с этим id; нужно при удалении картинки из хранилища.
+    public void invalidate(UUID imageId) {
+        images.asMap().keySet().removeIf(key -> key.imageId().equals(imageId));
+    }
+
+    // Что делает: возвращает накопленную статистику кэша.
+    // Как делает: отдаёт снимок счётчиков Caffeine (попадания, промахи, вытеснения).
+    public CacheStats stats() {
+        return images.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.image-cache-stats-interval-ms:300000}")
+    // Что делает: периодически пишет в лог эффективность кэша картинок.
+    // Как делает: логирует hit rate, число запросов и вытеснений и текущий занятый объём.
+    public void logStats() {
+        CacheStats stats = images.stats();
+        if (stats.requestCount() == 0) {
+            return;
+        }
+        long weight = images.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        log.info("Image cache: hitRate={} requests={} evictions={} size={}KB entries={}",
+                String.format("%.3f", stats.hitRate()), stats.requestCount(), stats.evictionCount(),
+                weight / 1024, images.estimatedSize());
+    }
+
+    // Что делает: нормализует запрошенный размер для ключа кэша.
+    // Как делает: запрос оригинала (без размера или с неположительным размером) хранит под нулём.
+    private static int normalize(Integer sizePx) {
+        return sizePx == null || sizePx <= 0 ? 0 : sizePx;
+    }
+
+    // Что делает: описывает ключ кэша.
+    // Как делает: связывает id картинки с запрошенным размером.
+    private record Key(UUID imageId, int sizePx) {
+    }
+
+    // Что делает: описывает закэшированное содержимое картинки.
+    // Как делает: хранит тип, хэш содержимого (для ETag), хэш оригинала (версия в URL) и сами байты.
+    public record CachedImage(String contentType, String contentHash, String imageHash, byte[] data) {
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.telegramhabit.repository.HabitRepository;
+import org.example.telegramhabit.repository.StoredImageRepository;
+import org.example.telegramhabit.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+// Что делает: удаляет загруженные картинки, на которые больше никто не ссылается.
+// Как делает: mark-and-sweep: собирает id картинок из app_user.photo_url и habit.image_url, затем пачками проходит
+// по stored_image старше периода ожидания и удаляет всё, что не попало в отмеченное множество.
+public class ImageGarbageCollector {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final StoredImageRepository storedImageRepository;
+    private final UserRepository userRepository;
+    private final HabitRepository habitRepository;
+    private final AvatarStorageService avatarStorageService;
+
+    @Value("${app.storage.gc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.gc.grace-hours:24}")
+    private long graceHours;
+
+    @Value("${app.storage.gc.batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(cron = "${app.storage.gc.cron:0 15 4 * * *}")
+    // Что делает: запускает сборку мусора по расписанию.
+    // Как делает: проверяет флаг включения и вызывает полный проход.
+    public void collectScheduled() {
+        if (enabled) {
+            collect();
+        }
+    }
+
+    // Что делает: выполняет один проход сборки мусора и возвращает отчёт.
+    // Как делает: сначала отмечает живые картинки, потом пачками удаляет неотмеченные строки и файлы без ссылок;
+    // период ожидания защищает картинки, которые только что загружены и ещё не успели попасть в профиль или привычку,
+    // а также файлы, которые за это время повторно записала загрузка тех же байт.
+    public Report collect() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(graceHours);
+        Instant fileCutoff = cutoff.atZone(ZoneId.systemDefault()).toInstant();
+        Set<UUID> live = markLiveImages();
+
+        long scanned = 0;
+        long deletedImages = 0;
+        long deletedFiles = 0;
+        long reclaimedBytes = 0;
+        UUID after = MIN_ID;
+        while (true) {
+            List<UUID> candidates = storedImageRepository.findIdsCreatedBefore(cutoff, after, PageRequest.of(0, batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            scanned += candidates.size();
+            after = candidates.get(candidates.size() - 1);
+            List<UUID> orphans = candidates.stream().filter(id -> !live.contains(id)).toList();
+            if (orphans.isEmpty()) {
+                continue;
+            }
+            Map<String, Long> contents = avatarStorageService.deleteImages(orphans);
+            deletedImages += orphans.size();
+            for (Map.Entry<String, Long> content : contents.entrySet()) {
+                if (avatarStorageService.deleteContentIfUnreferenced(content.getKey(), fileCutoff)) {
+                    deletedFiles++;
+                    reclaimedBytes += content.getValue();
+                }
+            }
+        }
+
+        Report report = new Report(live.size(), scanned, deletedImages, deletedFiles, reclaimedBytes);
+        log.info("Image GC: live={} scanned={} deletedImages={} deletedFiles={} reclaimedBytes={}",
+                report.liveImages(), report.scannedImages(), report.deletedImages(), report.deletedFiles(), report.reclaimedBytes());
+        return report;
+    }
+
+    // Что делает: собирает множество id картинок, на которые есть ссылки.
+    // Как делает: читает только URL из app_user.photo_url и habit.image_url с префиксом /api/files/ и разбирает из них id.
+    private Set<UUID> markLiveImages() {
+        Set<UUID> live = new HashSet<>();
+        for (String url : userRepository.findPhotoUrlsStartingWith(AvatarStorageService.FILES_URL_PREFIX)) {
+            AvatarStorageService.parseImageId(url).ifPresent(live::add);
+        }
+        for (String url : habitRepository.findImageUrlsStartingWith(AvatarStorageService.FILES_URL_PREFIX)) {
+            AvatarStorageService.parseImageId(url).ifPresent(live::add);
+        }
+        return live;
+    }
+
+    // Что делает: описывает итог одного прохода сборки мусора.
+    // Как делает: хранит число живых, просмотренных и удалённых картинок, удалённых файлов и освобождённые байты.
+    public record Report(long liveImages, long scannedImages, long deletedImages, long deletedFiles, long reclaimedBytes) {
+    }
+}
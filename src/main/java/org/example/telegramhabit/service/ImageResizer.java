@@ -0,0 +1,236 @@
+package org.example.telegramhabit.service;
+
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+@Component
+// Что делает: готовит уменьшенные варианты загруженной картинки.
+// Как делает: декодирует сохранённый оригинал один раз через ImageIO, поворачивает его по EXIF-ориентации
+// и пережимает в нужные размеры без исходных метаданных.
+public class ImageResizer {
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    // Что делает: строит варианты картинки по большей стороне.
+    // Как делает: идёт от большего размера к меньшему, уменьшая уже уменьшенную копию; размеры не меньше оригинала пропускает,
+    // а если формат не читается ImageIO (например webp), возвращает пустой список.
+    public List<Variant> resize(Resource source, Collection<Integer> sizes) {
+        List<Integer> ordered = sizes.stream().filter(size -> size > 0).distinct().sorted(Comparator.reverseOrder()).toList();
+        if (ordered.isEmpty()) {
+            return List.of();
+        }
+        BufferedImage image = decode(source, ordered.get(0));
+        if (image == null) {
+            return List.of();
+        }
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        image = orient(image, orientation(source), alpha);
+        int longestSide = Math.max(image.getWidth(), image.getHeight());
+        List<Variant> variants = new ArrayList<>();
+        BufferedImage current = image;
+        for (int size : ordered) {
+            if (size >= longestSide) {
+                continue;
+            }
+            current = scale(current, size, alpha);
+            variants.add(new Variant(size, alpha ? "image/png" : "image/jpeg", encode(current, alpha)));
+        }
+        return variants;
+    }
+
+    // Что делает: декодирует картинку из хранилища в уменьшенном разрешении.
+    // Как делает: читает размеры из заголовка и включает subsampling, чтобы в память попадало не больше
+    // примерно двух наибольших вариантов по стороне, а не полноразмерное фото.
+    private BufferedImage decode(Resource source, int largestVariant) {
+        try {
+            if (source.isFile()) {
+                try (ImageInputStream in = ImageIO.createImageInputStream(source.getFile())) {
+                    return decode(in, largestVariant);
+                }
+            }
+            try (InputStream raw = source.getInputStream(); ImageInputStream in = ImageIO.createImageInputStream(raw)) {
+                return decode(in, largestVariant);
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    // Что делает: декодирует картинку из уже открытого ImageInputStream.
+    // Как делает: выбирает подходящий ImageReader и читает первый кадр с шагом subsampling.
+    private BufferedImage decode(ImageInputStream in, int largestVariant) throws IOException {
+        if (in == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+            int step = Math.max(1, longestSide / (largestVariant * 2));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(step, step, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // Что делает: читает EXIF-ориентацию JPEG.
+    // Как делает: идёт по маркерам заголовка до первого Exif-сегмента APP1 и берёт тег Orientation из IFD0;
+    // для других форматов и битых заголовков возвращает 1 (без поворота).
+    private int orientation(Resource source) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(source.getInputStream()))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (marker != 0xFFE1) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                int orientation = exifOrientation(in.readNBytes(length));
+                if (orientation > 0) {
+                    return orientation;
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            return 1;
+        }
+    }
+
+    // Что делает: достаёт ориентацию из сегмента APP1.
+    // Как делает: проверяет подпись Exif, читает порядок байт TIFF и ищет тег 0x0112 в первом IFD;
+    // 0 — сегмент не Exif (например XMP), и поиск продолжается.
+    private int exifOrientation(byte[] segment) {
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i' || segment[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if ((tiff.getShort(entry) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    // Что делает: поворачивает и отражает картинку так, как её показывает просмотрщик с учётом EXIF.
+    // Как делает: для каждой из восьми ориентаций задаёт матрицу, переводящую исходные координаты в итоговые,
+    // и рисует исходник в новый буфер; для ориентаций 5–8 ширина и высота меняются местами.
+    private BufferedImage orient(BufferedImage source, int orientation, boolean alpha) {
+        int w = source.getWidth();
+        int h = source.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return source;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Что делает: уменьшает картинку до заданной большей стороны.
+    // Как делает: сохраняет пропорции и рисует исходник в новый буфер с бикубической интерполяцией.
+    private BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        double ratio = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Что делает: кодирует вариант в байты.
+    // Как делает: картинки с прозрачностью пишет в PNG, остальные в JPEG с фиксированным качеством.
+    private byte[] encode(BufferedImage image, boolean alpha) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (alpha) {
+                ImageIO.write(image, "png", out);
+                return out.toByteArray();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(imageOut);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Cannot encode image variant", ex);
+        }
+    }
+
+    // Что делает: описывает один готовый вариант картинки.
+    // Как делает: хранит размер по большей стороне, тип содержимого и закодированные байты.
+    public record Variant(int sizePx, String contentType, byte[] data) {
+    }
+}
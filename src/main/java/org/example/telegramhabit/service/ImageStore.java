@@ -0,0 +1,33 @@
+package org.example.telegramhabit.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.time.Instant;
+
+// Что делает: описывает хранилище содержимого картинок, адресуемое по SHA-256.
+// Как делает: задаёт контракт записи, чтения и удаления байтов; метаданные при этом живут в таблице stored_image.
+public interface ImageStore {
+
+    // Что делает: сохраняет байты картинки и возвращает их адрес.
+    // Как делает: считает SHA-256 содержимого; одинаковые загрузки ложатся в одно и то же место и хранятся один раз.
+    StoredBlob put(byte[] data);
+
+    // Что делает: сохраняет картинку из потока, не держа её целиком в памяти.
+    // Как делает: копирует поток во временный объект, по пути считая SHA-256, и затем кладёт его по адресу хэша.
+    StoredBlob put(InputStream in);
+
+    // Что делает: открывает сохранённое содержимое по хэшу.
+    // Как делает: возвращает Resource без чтения данных в память, либо бросает исключение, если содержимого нет.
+    Resource get(String contentHash);
+
+    // Что делает: удаляет содержимое по хэшу, если его давно никто не записывал.
+    // Как делает: пропускает объект, записанный или повторно записанный put после cutoff (его могла только что
+    // загрузить ещё не закоммиченная транзакция), иначе удаляет и сообщает, был ли он там.
+    boolean delete(String contentHash, Instant cutoff);
+
+    // Что делает: описывает результат записи в хранилище.
+    // Как делает: хранит SHA-256 в hex и размер содержимого в байтах.
+    record StoredBlob(String contentHash, long sizeBytes) {
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.telegramhabit.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Что делает: общий Caffeine-кэш для данных из БД, который сервисы сбрасывают при изменениях.
+// Как делает: сбрасывает запись сразу и ещё раз после завершения транзакции, а каждому сбросу выдаёт номер
+// поколения; читатель берёт stamp() до чтения БД, и put с более старым номером отбрасывается, поэтому данные,
+// прочитанные до коммита, не попадут в кэш даже после повторного сброса.
+final class InvalidatingCache<K, V> {
+
+    private final Cache<K, V> values;
+    private final Cache<K, Long> invalidatedAt;
+    private final AtomicLong generation = new AtomicLong();
+
+    // Что делает: создаёт кэш с ограничением по размеру и TTL.
+    // Как делает: номера сбросов живут столько же, сколько записи, поэтому более старый номер уже ничего не защищает.
+    InvalidatingCache(long ttlSeconds, long maxSize) {
+        this.values = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    // Что делает: возвращает текущее поколение кэша.
+    // Как делает: читатель вызывает метод до чтения БД и передаёт результат в put.
+    long stamp() {
+        return generation.get();
+    }
+
+    // Что делает: возвращает запись, если она есть.
+    // Как делает: читает кэш без загрузки.
+    V getIfPresent(K key) {
+        return values.getIfPresent(key);
+    }
+
+    // Что делает: возвращает все найденные записи пачкой.
+    // Как делает: отсутствующих ключей в ответе нет.
+    Map<K, V> getAllPresent(Collection<K> keys) {
+        return values.getAllPresent(keys);
+    }
+
+    // Что делает: возвращает запись, загружая её при промахе.
+    // Как делает: Caffeine вызывает загрузчик один раз на ключ, а сброс того же ключа ждёт окончания загрузки,
+    // поэтому загруженное до сброса значение не переживает его.
+    V get(K key, Function<K, V> loader) {
+        return values.get(key, loader);
+    }
+
+    // Что делает: кладёт запись, прочитанную из БД после stamp().
+    // Как делает: под блокировкой ключа сравнивает stamp с номером последнего сброса и пропускает запись,
+    // если ключ сбрасывали уже после начала чтения.
+    void put(K key, V value, long stamp) {
+        invalidatedAt.asMap().compute(key, (ignored, last) -> {
+            if (last == null || last <= stamp) {
+                values.put(key, value);
+            }
+            return last;
+        });
+    }
+
+    // Что делает: сбрасывает записи после изменения данных.
+    // Как делает: сбрасывает сразу, а внутри транзакции ещё раз после её завершения, чтобы параллельный запрос,
+    // успевший прочитать старое состояние до коммита, не оставил его в кэше.
+    void invalidate(Collection<K> keys) {
+        List<K> copy = List.copyOf(keys);
+        evict(copy);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            // Что делает: повторно сбрасывает кэш по завершении транзакции.
+            // Как делает: вызывает evict для тех же ключей.
+            public void afterCompletion(int status) {
+                evict(copy);
+            }
+        });
+    }
+
+    // Что делает: удаляет записи и отмечает сброс новым поколением.
+    // Как делает: под той же блокировкой ключа, что и put, удаляет значение и записывает номер сброса.
+    private void evict(Collection<K> keys) {
+        for (K key : keys) {
+            invalidatedAt.asMap().compute(key, (ignored, last) -> {
+                values.invalidate(key);
+                return generation.incrementAndGet();
+            });
+        }
+    }
+}
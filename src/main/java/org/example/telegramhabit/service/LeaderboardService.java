@@ -0,0 +1,112 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.LeaderboardEntryResponse;
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.entity.UserStatsEntity;
+import org.example.telegramhabit.repository.HabitRepository;
+import org.example.telegramhabit.repository.UserRepository;
+import org.example.telegramhabit.repository.UserStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: строит лидерборд пользователя и его друзей.
+// Как делает: тремя запросами по кругу друзей читает профили, готовые агрегаты user_stats и недельные цели,
+// а ранжирует участников в памяти без пересчёта серий по истории выполнений.
+public class LeaderboardService {
+
+    private final UserRepository userRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final HabitRepository habitRepository;
+    private final UserStatsService userStatsService;
+
+    @Transactional(readOnly = true)
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: собирает метрики каждого участника, сортирует по выбранной метрике (streak, weekly или total)
+    // с остальными как тай-брейками и выдаёт одинаковое место при полностью равных метриках.
+    public List<LeaderboardEntryResponse> leaderboard(UserEntity user, String sort) {
+        Comparator<Row> order = comparator(sort);
+        LocalDate today = LocalDate.now();
+        Map<UUID, UserStatsEntity> statsByUser = userStatsRepository.findFriendCircle(user.getId()).stream()
+                .collect(Collectors.toMap(UserStatsEntity::getUserId, Function.identity()));
+        Map<UUID, Long> targetByUser = habitRepository.findWeeklyTargetsForFriendCircle(user.getId()).stream()
+                .collect(Collectors.toMap(HabitRepository.WeeklyTarget::getUserId, HabitRepository.WeeklyTarget::getTarget));
+
+        List<Row> rows = new ArrayList<>();
+        for (UserEntity member : userRepository.findFriendCircle(user.getId())) {
+            UserStatsEntity stats = statsByUser.get(member.getId());
+            int streak = stats == null ? 0 : userStatsService.effectiveStreak(stats, today);
+            int weekCompletions = stats == null ? 0 : userStatsService.effectiveWeekCompletions(stats, today);
+            long total = stats == null ? 0 : stats.getTotalCompletions();
+            int weeklyPercent = percent(weekCompletions, targetByUser.getOrDefault(member.getId(), 0L));
+            rows.add(new Row(member, streak, weeklyPercent, total));
+        }
+        rows.sort(order.thenComparing(row -> row.user().getId()));
+
+        List<LeaderboardEntryResponse> result = new ArrayList<>(rows.size());
+        int rank = 0;
+        Row previous = null;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (previous == null || order.compare(previous, row) != 0) {
+                rank = i + 1;
+            }
+            previous = row;
+            UserEntity member = row.user();
+            result.add(new LeaderboardEntryResponse(
+                    rank,
+                    member.getId(),
+                    member.getUsername(),
+                    member.getFirstName(),
+                    member.getLastName(),
+                    member.getPhotoUrl(),
+                    member.getId().equals(user.getId()),
+                    row.streak(),
+                    row.weeklyPercent(),
+                    row.total()
+            ));
+        }
+        return result;
+    }
+
+    // Что делает: выбирает порядок сортировки лидерборда.
+    // Как делает: сначала сравнивает по выбранной метрике по убыванию, затем по двум остальным.
+    private Comparator<Row> comparator(String sort) {
+        Comparator<Row> byStreak = Comparator.comparingInt(Row::streak).reversed();
+        Comparator<Row> byWeekly = Comparator.comparingInt(Row::weeklyPercent).reversed();
+        Comparator<Row> byTotal = Comparator.comparingLong(Row::total).reversed();
+        String normalized = sort == null ? "streak" : sort.toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "streak" -> byStreak.thenComparing(byWeekly).thenComparing(byTotal);
+            case "weekly" -> byWeekly.thenComparing(byStreak).thenComparing(byTotal);
+            case "total" -> byTotal.thenComparing(byStreak).thenComparing(byWeekly);
+            default -> throw new IllegalArgumentException("Unknown leaderboard sort: " + sort);
+        };
+    }
+
+    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
+    // Как делает: считает процент выполнения цели, не больше 100.
+    private int percent(long completed, long target) {
+        if (target <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, Math.round((completed * 100.0) / target));
+    }
+
+    // Что делает: описывает участника лидерборда до присвоения места.
+    // Как делает: хранит пользователя и его три метрики.
+    private record Row(UserEntity user, int streak, int weeklyPercent, long total) {
+    }
+}
@@ -22,6 +22,7 @@ import java.util.UUID;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final TodayCache todayCache;
 
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
     // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
@@ -40,6 +41,7 @@ public class NotificationService {
         notification.setRead(false);
         notification.setCreatedAt(LocalDateTime.now());
         notificationRepository.save(notification);
+        todayCache.invalidate(recipient.getId());
     }
 
     // Что делает: читает и возвращает данные для API или внутренней логики.
@@ -61,6 +63,7 @@ public class NotificationService {
                 notification.setRead(true);
             }
         }
+        todayCache.invalidate(recipient.getId());
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
@@ -68,7 +71,10 @@ public class NotificationService {
     @Transactional
     public void markRead(UserEntity recipient, UUID notificationId) {
         notificationRepository.findByIdAndRecipient(notificationId, recipient)
-                .ifPresent(notification -> notification.setRead(true));
+                .ifPresent(notification -> {
+                    notification.setRead(true);
+                    todayCache.invalidate(recipient.getId());
+                });
     }
 
     // Что делает: читает и возвращает данные для API или внутренней логики.
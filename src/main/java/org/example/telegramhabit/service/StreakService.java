@@ -10,8 +10,12 @@ import org.springframework.stereotype.Service;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 @Service
@@ -20,40 +24,329 @@ import java.util.Set;
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public class StreakService {
 
+    private static final int WALK_CHUNK_PERIODS = 32;
+
     private final HabitCompletionRepository completionRepository;
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: берёт сохранённое состояние серии, а для ещё не инициализированной привычки считает по истории.
     public int currentStreak(HabitEntity habit) {
-        if (habit.getType() == HabitType.DAILY) {
-            return currentDailyStreak(habit);
+        if (habit.isStreakInitialized()) {
+            return currentStreak(habit, stateOf(habit), LocalDate.now());
         }
-        return currentWeeklyStreak(habit);
+        return currentStreak(habit, completedDates(habit), LocalDate.now());
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
+    // Как делает: берёт сохранённое состояние серии, а для ещё не инициализированной привычки считает по истории.
     public int bestStreak(HabitEntity habit) {
+        if (habit.isStreakInitialized()) {
+            return stateOf(habit).best();
+        }
+        return bestStreak(habit, completedDates(habit), LocalDate.now());
+    }
+
+    // Что делает: считает текущую серию по уже загруженным датам выполнения.
+    // Как делает: для привычки с сохранённым состоянием берёт его, иначе идёт по датам от новых к старым.
+    public int currentStreak(HabitEntity habit, List<LocalDate> descDates, LocalDate today) {
+        if (habit.isStreakInitialized()) {
+            return currentStreak(habit, stateOf(habit), today);
+        }
         if (habit.getType() == HabitType.DAILY) {
-            return bestDailyStreak(habit);
+            return currentDailyFromDates(descDates, today);
         }
-        return bestWeeklyStreak(habit);
+        return currentWeeklyStreak(habit, descDates, today);
     }
 
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private int currentDailyStreak(HabitEntity habit) {
-        List<LocalDate> dates = completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
+    // Что делает: считает лучшую серию по уже загруженным датам выполнения.
+    // Как делает: для привычки с сохранённым состоянием берёт его, иначе проходит по всей истории.
+    public int bestStreak(HabitEntity habit, List<LocalDate> descDates, LocalDate today) {
+        if (habit.isStreakInitialized()) {
+            return stateOf(habit).best();
+        }
+        if (habit.getType() == HabitType.DAILY) {
+            return bestDailyStreak(descDates);
+        }
+        return bestWeeklyStreak(habit, descDates, today);
+    }
+
+    // Что делает: возвращает текущую серию по сохранённому состоянию.
+    // Как делает: последняя серия жива, если заканчивается сегодня или вчера (для недельной — на текущей неделе).
+    public int currentStreak(HabitEntity habit, StreakState state, LocalDate today) {
+        if (state.latestRunEnd() == null) {
+            return 0;
+        }
+        if (habit.getType() == HabitType.DAILY) {
+            return state.latestRunEnd().equals(today) || state.latestRunEnd().equals(today.minusDays(1)) ? state.latestRunLength() : 0;
+        }
+        return state.latestRunEnd().equals(weekStart(today)) ? state.latestRunLength() : 0;
+    }
+
+    // Что делает: пересчитывает состояние серии привычки из истории и сохраняет его в привычку.
+    // Как делает: читает все даты выполнения одним запросом; используется при инициализации, смене типа и для пакетов.
+    public void recompute(HabitEntity habit) {
+        recompute(habit, completedDates(habit));
+    }
+
+    // Что делает: пересчитывает состояние серии по уже загруженным датам и сохраняет его в привычку.
+    // Как делает: строит состояние через fullState и переносит его в колонки привычки.
+    public void recompute(HabitEntity habit, List<LocalDate> dates) {
+        store(habit, fullState(habit, dates));
+    }
+
+    // Что делает: обновляет сохранённое состояние серии после отметки или снятия отметки на дату.
+    // Как делает: вызывается после записи изменения; чинит состояние только вокруг затронутого дня (недели),
+    // читая из БД лишь соседние серии, а если состояние ещё не посчитано или починка невозможна — пересчитывает целиком.
+    public void applyChange(HabitEntity habit, LocalDate date, boolean completed) {
+        StreakState repaired = habit.isStreakInitialized()
+                ? repair(habit, stateOf(habit), date, completed, repositoryDates(habit))
+                : null;
+        if (repaired == null) {
+            recompute(habit);
+        } else {
+            store(habit, repaired);
+        }
+    }
+
+    // Что делает: возвращает состояние серии привычки для отдачи клиенту.
+    // Как делает: берёт сохранённое состояние, а для ещё не инициализированной привычки строит его по загруженным датам.
+    public StreakState state(HabitEntity habit, Collection<LocalDate> dates) {
+        return habit.isStreakInitialized() ? stateOf(habit) : fullState(habit, dates);
+    }
+
+    // Что делает: строит состояние серии по всей истории выполнений.
+    // Как делает: группирует даты по периодам (дням или неделям), находит серии подряд выполненных периодов
+    // и запоминает лучшую длину, число серий такой длины и последнюю серию.
+    public StreakState fullState(HabitEntity habit, Collection<LocalDate> dates) {
+        Map<LocalDate, Integer> counts = countByPeriod(habit, dates);
+        List<LocalDate> metPeriods = counts.entrySet().stream()
+                .filter(entry -> isMet(habit, entry.getValue()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        int best = 0;
+        int bestRuns = 0;
+        int run = 0;
+        LocalDate previous = null;
+        for (int i = 0; i <= metPeriods.size(); i++) {
+            LocalDate period = i < metPeriods.size() ? metPeriods.get(i) : null;
+            if (period != null && previous != null && shift(habit, previous, 1).equals(period)) {
+                run++;
+            } else {
+                if (run > best) {
+                    best = run;
+                    bestRuns = 1;
+                } else if (run > 0 && run == best) {
+                    bestRuns++;
+                }
+                run = 1;
+            }
+            previous = period;
+        }
+        if (metPeriods.isEmpty()) {
+            return StreakState.EMPTY;
+        }
+        LocalDate latestEnd = metPeriods.get(metPeriods.size() - 1);
+        int latestLength = 1;
+        for (int i = metPeriods.size() - 2; i >= 0 && shift(habit, metPeriods.get(i), 1).equals(metPeriods.get(i + 1)); i--) {
+            latestLength++;
+        }
+        return new StreakState(best, bestRuns, latestEnd, latestLength);
+    }
+
+    // Что делает: чинит состояние серии после изменения одной даты без прохода по всей истории.
+    // Как делает: если период даты (день или неделя) поменял статус «выполнен», измеряет соседние серии слева и справа
+    // и склеивает или разрезает их; лучшую серию обновляет по счётчику серий лучшей длины. Возвращает null, когда
+    // ответ без полной истории не получить: разрезана единственная лучшая серия или пропала последняя серия недельной привычки.
+    public StreakState repair(HabitEntity habit, StreakState state, LocalDate date, boolean completed, CompletionDates source) {
+        LocalDate period = period(habit, date);
+        Set<LocalDate> periodDates = new HashSet<>(source.between(period, periodEnd(habit, period)));
+        periodDates.remove(date);
+        boolean metWithout = isMet(habit, periodDates.size());
+        boolean metWith = isMet(habit, periodDates.size() + 1);
+        boolean before = completed ? metWithout : metWith;
+        boolean after = completed ? metWith : metWithout;
+        if (before == after) {
+            return state;
+        }
+
+        int left = run(habit, shift(habit, period, -1), -1, source);
+        int right = run(habit, shift(habit, period, 1), 1, source);
+        LocalDate runEnd = shift(habit, period, right);
+        int length = left + 1 + right;
+        int best = state.best();
+        int bestRuns = state.bestRuns();
+        LocalDate latestEnd = state.latestRunEnd();
+        int latestLength = state.latestRunLength();
+
+        if (after) {
+            if (length > best) {
+                best = length;
+                bestRuns = 1;
+            } else if (length == best) {
+                bestRuns++;
+            }
+            if (latestEnd == null || !runEnd.isBefore(latestEnd)) {
+                latestEnd = runEnd;
+                latestLength = length;
+            }
+            return new StreakState(best, bestRuns, latestEnd, latestLength);
+        }
+
+        if (length == best && --bestRuns == 0) {
+            return null;
+        }
+        if (runEnd.equals(latestEnd)) {
+            if (right > 0) {
+                latestLength = right;
+            } else if (left > 0) {
+                latestEnd = shift(habit, period, -1);
+                latestLength = left;
+            } else {
+                Optional<LocalDate> previousDate = source.latestBefore(period);
+                if (previousDate.isEmpty()) {
+                    latestEnd = null;
+                    latestLength = 0;
+                } else {
+                    latestEnd = period(habit, previousDate.get());
+                    latestLength = run(habit, latestEnd, -1, source);
+                    if (latestLength == 0) {
+                        return null;
+                    }
+                }
+            }
+        }
+        return new StreakState(best, bestRuns, latestEnd, latestLength);
+    }
+
+    // Что делает: возвращает сохранённое в привычке состояние серии.
+    // Как делает: собирает StreakState из колонок привычки.
+    private StreakState stateOf(HabitEntity habit) {
+        return new StreakState(habit.getStreakBest(), habit.getStreakBestRuns(), habit.getStreakLatestEnd(), habit.getStreakLatestLength());
+    }
+
+    // Что делает: записывает состояние серии в привычку.
+    // Как делает: переносит поля StreakState в колонки и помечает состояние посчитанным.
+    private void store(HabitEntity habit, StreakState state) {
+        habit.setStreakInitialized(true);
+        habit.setStreakBest(state.best());
+        habit.setStreakBestRuns(state.bestRuns());
+        habit.setStreakLatestEnd(state.latestRunEnd());
+        habit.setStreakLatestLength(state.latestRunLength());
+    }
+
+    // Что делает: даёт доступ к датам выполнения привычки в БД для починки серии.
+    // Как делает: оборачивает запросы по диапазону дат и последней дате до заданной.
+    private CompletionDates repositoryDates(HabitEntity habit) {
+        return new CompletionDates() {
+            @Override
+            // Что делает: читает даты выполнения в диапазоне.
+            // Как делает: делегирует запросу по индексу (habit_id, date).
+            public List<LocalDate> between(LocalDate from, LocalDate to) {
+                return completionRepository.findCompletedDatesBetween(habit, from, to);
+            }
+
+            @Override
+            // Что делает: находит последнюю дату выполнения раньше заданной.
+            // Как делает: делегирует запросу max(date).
+            public Optional<LocalDate> latestBefore(LocalDate date) {
+                return Optional.ofNullable(completionRepository.findLatestCompletedDateBefore(habit, date));
+            }
+        };
+    }
+
+    // Что делает: измеряет серию подряд выполненных периодов, начиная с заданного.
+    // Как делает: читает даты кусками по WALK_CHUNK_PERIODS периодов в нужную сторону и останавливается на первом невыполненном.
+    private int run(HabitEntity habit, LocalDate start, int direction, CompletionDates source) {
+        int length = 0;
+        LocalDate cursor = start;
+        while (true) {
+            LocalDate last = shift(habit, cursor, direction * (WALK_CHUNK_PERIODS - 1));
+            LocalDate from = direction > 0 ? cursor : last;
+            LocalDate to = periodEnd(habit, direction > 0 ? last : cursor);
+            Map<LocalDate, Integer> counts = countByPeriod(habit, source.between(from, to));
+            for (int i = 0; i < WALK_CHUNK_PERIODS; i++) {
+                if (!isMet(habit, counts.getOrDefault(cursor, 0))) {
+                    return length;
+                }
+                length++;
+                cursor = shift(habit, cursor, direction);
+            }
+        }
+    }
+
+    // Что делает: считает выполнения по периодам привычки.
+    // Как делает: раскладывает уникальные даты по дням или по понедельникам недель.
+    private Map<LocalDate, Integer> countByPeriod(HabitEntity habit, Collection<LocalDate> dates) {
+        Map<LocalDate, Integer> counts = new HashMap<>();
+        for (LocalDate date : new HashSet<>(dates)) {
+            counts.merge(period(habit, date), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // Что делает: проверяет, выполнен ли период при заданном числе отметок.
+    // Как делает: день выполнен при одной отметке, неделя — при числе отметок не меньше timesPerWeek.
+    private boolean isMet(HabitEntity habit, int count) {
+        if (habit.getType() == HabitType.DAILY) {
+            return count >= 1;
+        }
+        return habit.getTimesPerWeek() != null && count >= habit.getTimesPerWeek();
+    }
+
+    // Что делает: возвращает период, в который попадает дата.
+    // Как делает: для ежедневной привычки это сам день, для недельной — понедельник недели.
+    private LocalDate period(HabitEntity habit, LocalDate date) {
+        return habit.getType() == HabitType.DAILY ? date : weekStart(date);
+    }
+
+    // Что делает: возвращает последний день периода.
+    // Как делает: для дня — сам день, для недели — воскресенье.
+    private LocalDate periodEnd(HabitEntity habit, LocalDate period) {
+        return habit.getType() == HabitType.DAILY ? period : period.plusDays(6);
+    }
+
+    // Что делает: сдвигает период на заданное число периодов.
+    // Как делает: прибавляет дни или недели в зависимости от типа привычки.
+    private LocalDate shift(HabitEntity habit, LocalDate period, int periods) {
+        return habit.getType() == HabitType.DAILY ? period.plusDays(periods) : period.plusWeeks(periods);
+    }
+
+    // Что делает: возвращает понедельник недели, в которую попадает дата.
+    // Как делает: сдвигает дату назад до понедельника включительно.
+    private LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Что делает: описывает сохранённое состояние серий привычки.
+    // Как делает: хранит лучшую длину серии, число серий такой длины и конец и длину последней серии
+    // (в днях или неделях по типу привычки); этого хватает, чтобы чинить состояние вокруг одной даты.
+    public record StreakState(int best, int bestRuns, LocalDate latestRunEnd, int latestRunLength) {
+
+        public static final StreakState EMPTY = new StreakState(0, 0, null, 0);
+    }
+
+    // Что делает: описывает источник дат выполнения привычки для починки серии.
+    // Как делает: отдаёт даты в диапазоне и последнюю дату до заданной; в приложении это запросы к БД.
+    public interface CompletionDates {
+
+        List<LocalDate> between(LocalDate from, LocalDate to);
+
+        Optional<LocalDate> latestBefore(LocalDate date);
+    }
+
+    // Что делает: читает даты выполнения привычки.
+    // Как делает: берёт выполненные отметки от новых к старым и оставляет только даты.
+    private List<LocalDate> completedDates(HabitEntity habit) {
+        return completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
                 .map(HabitCompletionEntity::getDate)
                 .toList();
-        return currentDailyFromDates(dates, LocalDate.now());
     }
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private int bestDailyStreak(HabitEntity habit) {
-        List<LocalDate> dates = completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
-                .map(HabitCompletionEntity::getDate)
+    private int bestDailyStreak(List<LocalDate> descDates) {
+        List<LocalDate> dates = descDates.stream()
                 .sorted()
                 .toList();
 
@@ -74,16 +367,13 @@ public class StreakService {
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private int currentWeeklyStreak(HabitEntity habit) {
-        List<LocalDate> dates = completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
-                .map(HabitCompletionEntity::getDate)
-                .toList();
+    private int currentWeeklyStreak(HabitEntity habit, List<LocalDate> dates, LocalDate today) {
         if (dates.isEmpty()) {
             return 0;
         }
 
         Set<LocalDate> set = new HashSet<>(dates);
-        LocalDate weekStart = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         int streak = 0;
         while (isWeekCompleted(set, weekStart, habit.getTimesPerWeek())) {
             streak++;
@@ -94,17 +384,14 @@ public class StreakService {
 
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private int bestWeeklyStreak(HabitEntity habit) {
-        List<LocalDate> dates = completionRepository.findByHabitAndCompletedTrueOrderByDateDesc(habit).stream()
-                .map(HabitCompletionEntity::getDate)
-                .toList();
+    private int bestWeeklyStreak(HabitEntity habit, List<LocalDate> dates, LocalDate today) {
         if (dates.isEmpty()) {
             return 0;
         }
 
         Set<LocalDate> set = new HashSet<>(dates);
-        LocalDate min = dates.stream().min(LocalDate::compareTo).orElse(LocalDate.now());
-        LocalDate max = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate min = dates.stream().min(LocalDate::compareTo).orElse(today);
+        LocalDate max = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate cursor = min.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         int best = 0;
         int current = 0;
@@ -0,0 +1,74 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.SyncCompletionResponse;
+import org.example.telegramhabit.dto.SyncResponse;
+import org.example.telegramhabit.entity.SyncEntityType;
+import org.example.telegramhabit.entity.SyncStateEntity;
+import org.example.telegramhabit.entity.SyncTombstoneEntity;
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.example.telegramhabit.repository.SyncStateRepository;
+import org.example.telegramhabit.repository.SyncTombstoneRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: отдаёт клиенту изменения его привычек и отметок выполнения для локальной копии данных.
+// Как делает: сравнивает номер изменения клиента со счётчиком sync_state и читает только строки с большим change_seq
+// и надгробия удалённых записей; если изменений нет, обходится одним запросом.
+public class SyncService {
+
+    private final SyncStateRepository syncStateRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final HabitCompletionRepository completionRepository;
+    private final HabitService habitService;
+
+    @Transactional(readOnly = true)
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: без since, с since ниже границы вычищенных надгробий или с since из будущего отдаёт полный снимок;
+    // если since уже равен текущему номеру — пустой ответ; иначе изменённые привычки (с пересчитанными сериями),
+    // отметки и id удалённых записей. Смена дня не меняет номер изменения, поэтому текущую серию реплика
+    // пересчитывает сама по streakLatestEnd/streakLatestLength, а не хранит currentStreak из последней дельты.
+    public SyncResponse changesSince(UserEntity user, Long since) {
+        SyncStateEntity state = syncStateRepository.findById(user.getId()).orElse(null);
+        long current = state == null ? 0 : state.getLastSeq();
+        long floor = state == null ? 0 : state.getTombstoneFloor();
+        boolean full = since == null || since <= 0 || since < floor || since > current;
+        if (!full && since == current) {
+            return new SyncResponse(current, false, List.of(), List.of(), List.of(), List.of());
+        }
+
+        long from = full ? 0 : since;
+        List<SyncCompletionResponse> completions = completionRepository.findChangedSince(user.getId(), from).stream()
+                .map(completion -> new SyncCompletionResponse(
+                        completion.getId(),
+                        completion.getHabit().getId(),
+                        completion.getDate(),
+                        completion.getCreatedAt()
+                ))
+                .toList();
+        List<SyncTombstoneEntity> tombstones = full ? List.of() : syncTombstoneRepository.findByUserIdAndSeqGreaterThan(user.getId(), from);
+        return new SyncResponse(
+                current,
+                full,
+                habitService.listChangedSince(user, from),
+                completions,
+                deletedIds(tombstones, SyncEntityType.HABIT),
+                deletedIds(tombstones, SyncEntityType.COMPLETION)
+        );
+    }
+
+    // Что делает: выбирает id удалённых записей нужного вида.
+    // Как делает: фильтрует надгробия по типу сущности.
+    private List<UUID> deletedIds(List<SyncTombstoneEntity> tombstones, SyncEntityType type) {
+        return tombstones.stream()
+                .filter(tombstone -> tombstone.getEntityType() == type)
+                .map(SyncTombstoneEntity::getEntityId)
+                .toList();
+    }
+}
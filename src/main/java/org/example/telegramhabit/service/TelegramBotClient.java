@@ -0,0 +1,97 @@
+package org.example.telegramhabit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+@Component
+// Что делает: отправляет сообщения пользователям через Telegram Bot API.
+// Как делает: вызывает sendMessage с токеном бота из конфигурации; ошибки доставки делит на постоянные
+// (бот заблокирован, чат не найден) и временные (429, 5xx, сеть), для 429 возвращает retry_after.
+public class TelegramBotClient {
+
+    private final RestClient restClient = RestClient.create();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.telegram.bot-token:change-me}")
+    private String botToken;
+
+    // Что делает: проверяет, что токен бота задан.
+    // Как делает: пустой токен и заглушка change-me считаются отсутствующими.
+    public boolean isConfigured() {
+        return botToken != null && !botToken.isBlank() && !"change-me".equals(botToken);
+    }
+
+    // Что делает: отправляет сообщение или запрос во внешний сервис и возвращает статус.
+    // Как делает: true только при успешной отправке; вид ошибки не важен для вызывающего кода.
+    public boolean sendMessage(Long chatId, String text) {
+        return send(chatId, text).status() == SendStatus.SENT;
+    }
+
+    // Что делает: отправляет сообщение и сообщает, имеет ли смысл повторять неудачную отправку.
+    // Как делает: 429 и ответы 5xx, как и сетевые ошибки, считает временными, для 429 берёт retry_after из тела
+    // ответа (или заголовка Retry-After); остальные 4xx считает постоянными — повтор вернёт ту же ошибку.
+    public SendResult send(Long chatId, String text) {
+        try {
+            restClient.post()
+                    .uri("https://api.telegram.org/bot{token}/sendMessage", botToken)
+                    .body(new SendMessageRequest(chatId, text))
+                    .retrieve()
+                    .toBodilessEntity();
+            return new SendResult(SendStatus.SENT, 0);
+        } catch (RestClientResponseException e) {
+            if (e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                return new SendResult(SendStatus.RETRY, retryAfterSeconds(e));
+            }
+            if (e.getStatusCode().is4xxClientError()) {
+                return new SendResult(SendStatus.PERMANENT, 0);
+            }
+            return new SendResult(SendStatus.RETRY, 0);
+        } catch (Exception e) {
+            return new SendResult(SendStatus.RETRY, 0);
+        }
+    }
+
+    // Что делает: читает, через сколько секунд Telegram разрешает повторить запрос после 429.
+    // Как делает: берёт parameters.retry_after из JSON-ответа, иначе заголовок Retry-After; если обоих нет — 0.
+    private long retryAfterSeconds(RestClientResponseException e) {
+        long retryAfter;
+        try {
+            retryAfter = objectMapper.readTree(e.getResponseBodyAsByteArray()).path("parameters").path("retry_after").asLong(0);
+        } catch (Exception ignored) {
+            retryAfter = 0;
+        }
+        if (retryAfter > 0) {
+            return retryAfter;
+        }
+        HttpHeaders headers = e.getResponseHeaders();
+        String header = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return header == null ? 0 : Math.max(0, Long.parseLong(header.trim()));
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+
+    // Что делает: отправляет сообщение или запрос во внешний сервис и возвращает статус.
+    // Как делает: формирует внешний HTTP-запрос, отправляет его и обрабатывает возможные ошибки.
+    private record SendMessageRequest(Long chat_id, String text) {
+    }
+
+    // Что делает: описывает исход отправки сообщения.
+    // Как делает: SENT — доставлено, RETRY — можно повторить позже, PERMANENT — повтор не поможет.
+    public enum SendStatus {
+        SENT,
+        RETRY,
+        PERMANENT
+    }
+
+    // Что делает: описывает результат отправки сообщения.
+    // Как делает: хранит исход и, для 429, число секунд, которое Telegram просит подождать (0 — не указано).
+    public record SendResult(SendStatus status, long retryAfterSeconds) {
+    }
+}
@@ -2,6 +2,7 @@ package org.example.telegramhabit.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -12,10 +13,9 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Component
 @RequiredArgsConstructor
@@ -23,28 +23,44 @@ import java.util.stream.Collectors;
 // Как делает: объявляет структуру и контракт, который используют остальные части системы.
 public class TelegramInitDataValidator {
 
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
     private final ObjectMapper objectMapper;
 
     @Value("${app.telegram.bot-token}")
     private String botToken;
 
+    private ThreadLocal<Mac> signatureMac;
+
+    // Что делает: заранее готовит секретный ключ проверки подписи.
+    // Как делает: один раз считает HMAC-SHA256 токена бота с ключом "WebAppData" и создаёт потоковые экземпляры Mac.
+    @PostConstruct
+    void init() {
+        SecretKeySpec secretKey = new SecretKeySpec(hmacSha256("WebAppData".getBytes(StandardCharsets.UTF_8), botToken), HMAC_SHA256);
+        this.signatureMac = ThreadLocal.withInitial(() -> newMac(secretKey));
+    }
+
     // Что делает: проверяет входные данные и извлекает нужные значения.
     // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
     public TelegramUserData validateAndExtract(String initData) {
-        Map<String, String> values = parse(initData);
-        String hash = values.get("hash");
+        SortedMap<String, String> values = parse(initData);
+        String hash = values.remove("hash");
         if (hash == null || hash.isBlank()) {
             throw new IllegalArgumentException("Telegram hash is missing");
         }
 
-        String dataCheckString = values.entrySet().stream()
-                .filter(e -> !"hash".equals(e.getKey()))
-                .sorted(Comparator.comparing(Map.Entry::getKey))
-                .map(e -> e.getKey() + "=" + e.getValue())
-                .collect(Collectors.joining("\n"));
+        StringBuilder dataCheckString = new StringBuilder(initData.length());
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!dataCheckString.isEmpty()) {
+                dataCheckString.append('\n');
+            }
+            dataCheckString.append(entry.getKey()).append('=').append(entry.getValue());
+        }
 
-        String expectedHash = hmacSha256Hex(sha256("WebAppData", botToken), dataCheckString);
-        if (!MessageDigest.isEqual(expectedHash.getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8))) {
+        Mac mac = signatureMac.get();
+        byte[] expectedHash = toHex(mac.doFinal(dataCheckString.toString().getBytes(StandardCharsets.UTF_8)));
+        if (!MessageDigest.isEqual(expectedHash, hash.getBytes(StandardCharsets.UTF_8))) {
             throw new IllegalArgumentException("Invalid Telegram signature");
         }
 
@@ -75,51 +91,71 @@ public class TelegramInitDataValidator {
     }
 
     // Что делает: проверяет входные данные и извлекает нужные значения.
-    // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
-    private Map<String, String> parse(String initData) {
-        Map<String, String> values = new HashMap<>();
-        String[] pairs = initData.split("&");
-        for (String pair : pairs) {
-            String[] kv = pair.split("=", 2);
-            if (kv.length == 2) {
-                values.put(
-                        URLDecoder.decode(kv[0], StandardCharsets.UTF_8),
-                        URLDecoder.decode(kv[1], StandardCharsets.UTF_8)
-                );
+    // Как делает: за один проход по строке режет пары key=value и сразу складывает их в отсортированную карту.
+    private SortedMap<String, String> parse(String initData) {
+        SortedMap<String, String> values = new TreeMap<>();
+        int length = initData.length();
+        int start = 0;
+        while (start <= length) {
+            int end = initData.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int eq = initData.indexOf('=', start);
+            if (eq >= 0 && eq < end) {
+                values.put(decode(initData, start, eq), decode(initData, eq + 1, end));
             }
+            start = end + 1;
         }
         return values;
     }
 
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private byte[] sha256(String prefix, String value) {
+    // Что делает: декодирует URL-кодированный фрагмент строки.
+    // Как делает: вызывает URLDecoder только если во фрагменте есть '%' или '+', иначе возвращает подстроку как есть.
+    private String decode(String source, int from, int to) {
+        String raw = source.substring(from, to);
+        if (raw.indexOf('%') < 0 && raw.indexOf('+') < 0) {
+            return raw;
+        }
+        return URLDecoder.decode(raw, StandardCharsets.UTF_8);
+    }
+
+    // Что делает: считает HMAC-SHA256 от строки.
+    // Как делает: создаёт одноразовый Mac с переданным ключом; используется только при подготовке секрета.
+    private byte[] hmacSha256(byte[] key, String value) {
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(prefix.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
             return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
         } catch (Exception ex) {
             throw new IllegalStateException("Cannot prepare Telegram secret key");
         }
     }
 
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private String hmacSha256Hex(byte[] secret, String value) {
+    // Что делает: создаёт Mac для проверки подписи initData.
+    // Как делает: инициализирует HmacSHA256 заранее вычисленным секретом.
+    private static Mac newMac(SecretKeySpec secretKey) {
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
-            byte[] result = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(result.length * 2);
-            for (byte b : result) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(secretKey);
+            return mac;
         } catch (Exception ex) {
             throw new IllegalStateException("Cannot verify Telegram hash");
         }
     }
 
+    // Что делает: переводит байты в hex в нижнем регистре.
+    // Как делает: берёт символы по таблице для старшего и младшего полубайта без форматирования строк.
+    private static byte[] toHex(byte[] bytes) {
+        byte[] hex = new byte[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            hex[i * 2] = HEX[v >>> 4];
+            hex[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return hex;
+    }
+
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
     private String asText(JsonNode node, String field) {
@@ -13,7 +13,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClient;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -32,13 +31,7 @@ public class TelegramReminderService {
     private final HabitRepository habitRepository;
     private final HabitCompletionRepository completionRepository;
     private final ReminderLogRepository reminderLogRepository;
-
-    // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
-    // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
-    private final RestClient restClient = RestClient.create();
-
-    @Value("${app.telegram.bot-token:change-me}")
-    private String botToken;
+    private final TelegramBotClient telegramBotClient;
 
     @Value("${app.telegram.reminders.enabled:false}")
     private boolean remindersEnabled;
@@ -54,7 +47,7 @@ public class TelegramReminderService {
     // Что делает: отправляет сообщение или запрос во внешний сервис и возвращает статус.
     // Как делает: формирует внешний HTTP-запрос, отправляет его и обрабатывает возможные ошибки.
     public void sendDailyReminders() {
-        if (!remindersEnabled || botToken == null || botToken.isBlank() || "change-me".equals(botToken)) {
+        if (!remindersEnabled || !telegramBotClient.isConfigured()) {
             return;
         }
 
@@ -83,7 +76,7 @@ public class TelegramReminderService {
                 continue;
             }
 
-            if (sendReminder(user.getTelegramId(), reminderText(user, pendingCount))) {
+            if (telegramBotClient.sendMessage(user.getTelegramId(), reminderText(user, pendingCount))) {
                 ReminderLogEntity log = new ReminderLogEntity();
                 log.setId(UUID.randomUUID());
                 log.setUser(user);
@@ -94,21 +87,6 @@ public class TelegramReminderService {
         }
     }
 
-    // Что делает: отправляет сообщение или запрос во внешний сервис и возвращает статус.
-    // Как делает: формирует внешний HTTP-запрос, отправляет его и обрабатывает возможные ошибки.
-    private boolean sendReminder(Long chatId, String text) {
-        try {
-            restClient.post()
-                    .uri("https://api.telegram.org/bot{token}/sendMessage", botToken)
-                    .body(new SendMessageRequest(chatId, text))
-                    .retrieve()
-                    .toBodilessEntity();
-            return true;
-        } catch (Exception ignored) {
-            return false;
-        }
-    }
-
     // Что делает: выполняет бизнес-операцию метода и возвращает ожидаемый результат.
     // Как делает: выполняет шаги бизнес-логики по месту и возвращает итоговое значение.
     private String reminderText(UserEntity user, long pendingCount) {
@@ -117,9 +95,4 @@ public class TelegramReminderService {
         }
         return "Reminder: you still have " + pendingCount + " habit(s) to complete today.";
     }
-
-    // Что делает: отправляет сообщение или запрос во внешний сервис и возвращает статус.
-    // Как делает: формирует внешний HTTP-запрос, отправляет его и обрабатывает возможные ошибки.
-    private record SendMessageRequest(Long chat_id, String text) {
-    }
 }
@@ -0,0 +1,53 @@
+package org.example.telegramhabit.service;
+
+import org.example.telegramhabit.dto.TodayResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+// Что делает: хранит готовые ответы экрана «Сегодня» по пользователям до их следующего изменения.
+// Как делает: держит InvalidatingCache ответов с ограничением по размеру и TTL; сервисы сбрасывают запись пользователя
+// при каждом изменении его привычек, выполнений или уведомлений.
+public class TodayCache {
+
+    private final InvalidatingCache<UUID, TodayResponse> responses;
+
+    // Что делает: создаёт кэш с настройками из конфигурации.
+    // Как делает: строит кэш с ограничением по количеству пользователей и времени жизни.
+    public TodayCache(
+            @Value("${app.today.cache-ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.today.cache-max-size:10000}") long maxSize
+    ) {
+        this.responses = new InvalidatingCache<>(ttlSeconds, maxSize);
+    }
+
+    // Что делает: возвращает поколение кэша до чтения данных из БД.
+    // Как делает: результат передаётся в put, чтобы ответ, прочитанный до сброса, не попал в кэш.
+    public long stamp() {
+        return responses.stamp();
+    }
+
+    // Что делает: возвращает закэшированный ответ, если он посчитан на ту же дату.
+    // Как делает: ответ за вчерашний день не отдаёт, чтобы после полуночи экран не показывал старое «выполнено сегодня».
+    public Optional<TodayResponse> find(UUID userId, LocalDate today) {
+        TodayResponse response = responses.getIfPresent(userId);
+        return response != null && today.equals(response.date()) ? Optional.of(response) : Optional.empty();
+    }
+
+    // Что делает: кладёт посчитанный ответ в кэш.
+    // Как делает: сохраняет запись под id пользователя, если после stamp её не сбрасывали.
+    public void put(UUID userId, TodayResponse response, long stamp) {
+        responses.put(userId, response, stamp);
+    }
+
+    // Что делает: сбрасывает ответы пользователей после изменения их данных.
+    // Как делает: сбрасывает сразу и ещё раз после завершения транзакции через InvalidatingCache.
+    public void invalidate(UUID... userIds) {
+        responses.invalidate(List.of(userIds));
+    }
+}
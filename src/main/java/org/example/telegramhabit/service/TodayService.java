@@ -0,0 +1,38 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.dto.TodayResponse;
+import org.example.telegramhabit.entity.UserEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: собирает главный экран «Сегодня» одним ответом.
+// Как делает: берёт готовый ответ из TodayCache, а при промахе считает его тремя запросами и кэширует до следующего изменения.
+public class TodayService {
+
+    private final HabitService habitService;
+    private final NotificationService notificationService;
+    private final TodayCache todayCache;
+
+    @Transactional(readOnly = true)
+    // Что делает: читает и возвращает данные для API или внутренней логики.
+    // Как делает: при промахе кэша читает активные привычки, даты их выполнения и число непрочитанных уведомлений —
+    // всего три запроса независимо от числа привычек.
+    public TodayResponse today(UserEntity user) {
+        LocalDate today = LocalDate.now();
+        return todayCache.find(user.getId(), today).orElseGet(() -> {
+            long stamp = todayCache.stamp();
+            TodayResponse response = new TodayResponse(
+                    today,
+                    habitService.todayByOwner(user, today),
+                    notificationService.unreadCount(user)
+            );
+            todayCache.put(user.getId(), response, stamp);
+            return response;
+        });
+    }
+}
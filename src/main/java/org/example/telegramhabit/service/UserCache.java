@@ -0,0 +1,125 @@
+package org.example.telegramhabit.service;
+
+import org.example.telegramhabit.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+// Что делает: хранит короткоживущие снимки пользователей, чтобы не читать app_user на каждый запрос.
+// Как делает: держит ограниченный по размеру и TTL кэш снимков и запоминает пользователя в атрибутах текущего HTTP-запроса.
+public class UserCache {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = UserCache.class.getName() + ".";
+
+    private final InvalidatingCache<UUID, UserSnapshot> snapshots;
+
+    // Что делает: создаёт кэш с настройками из конфигурации.
+    // Как делает: строит кэш с ограничением по количеству записей и времени жизни.
+    public UserCache(
+            @Value("${app.users.cache-ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.users.cache-max-size:10000}") long maxSize
+    ) {
+        this.snapshots = new InvalidatingCache<>(ttlSeconds, maxSize);
+    }
+
+    // Что делает: возвращает поколение кэша до чтения пользователя из БД.
+    // Как делает: результат передаётся в put, чтобы строка, прочитанная до сброса, не попала в кэш.
+    public long stamp() {
+        return snapshots.stamp();
+    }
+
+    // Что делает: ищет пользователя сначала в рамках текущего запроса, затем в общем кэше.
+    // Как делает: возвращает уже выданную в этом запросе сущность или собирает новую detached-копию из снимка.
+    public Optional<UserEntity> find(UUID userId) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(REQUEST_ATTRIBUTE_PREFIX + userId, RequestAttributes.SCOPE_REQUEST) instanceof UserEntity user) {
+            return Optional.of(user);
+        }
+        UserSnapshot snapshot = snapshots.getIfPresent(userId);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        UserEntity user = snapshot.toEntity();
+        remember(attributes, user);
+        return Optional.of(user);
+    }
+
+    // Что делает: кладёт пользователя в кэш после чтения из БД.
+    // Как делает: сохраняет неизменяемый снимок полей, если после stamp пользователя не сбрасывали,
+    // и запоминает сущность в текущем запросе.
+    public void put(UserEntity user, long stamp) {
+        snapshots.put(user.getId(), UserSnapshot.of(user), stamp);
+        remember(RequestContextHolder.getRequestAttributes(), user);
+    }
+
+    // Что делает: сбрасывает закэшированного пользователя после изменения профиля.
+    // Как делает: удаляет атрибут текущего запроса, а снимок сбрасывает сразу и ещё раз после завершения транзакции,
+    // чтобы параллельный запрос, успевший перечитать старую строку до коммита, не оставил её в кэше.
+    public void invalidate(UUID userId) {
+        snapshots.invalidate(List.of(userId));
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.removeAttribute(REQUEST_ATTRIBUTE_PREFIX + userId, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    // Что делает: запоминает пользователя до конца текущего HTTP-запроса.
+    // Как делает: пишет сущность в request-атрибуты, если запрос вообще есть.
+    private void remember(RequestAttributes attributes, UserEntity user) {
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE_PREFIX + user.getId(), user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    // Что делает: описывает неизменяемый снимок строки app_user.
+    // Как делает: копирует поля сущности и по запросу собирает из них новую detached-сущность.
+    private record UserSnapshot(
+            UUID id,
+            Long telegramId,
+            String username,
+            String firstName,
+            String lastName,
+            String photoUrl,
+            String language,
+            LocalDateTime createdAt
+    ) {
+
+        // Что делает: создаёт снимок из сущности.
+        // Как делает: переносит все колонки пользователя в поля записи.
+        static UserSnapshot of(UserEntity user) {
+            return new UserSnapshot(
+                    user.getId(),
+                    user.getTelegramId(),
+                    user.getUsername(),
+                    user.getFirstName(),
+                    user.getLastName(),
+                    user.getPhotoUrl(),
+                    user.getLanguage(),
+                    user.getCreatedAt()
+            );
+        }
+
+        // Что делает: собирает detached-сущность из снимка.
+        // Как делает: заполняет новую UserEntity, чтобы изменения в одном запросе не протекали в кэш.
+        UserEntity toEntity() {
+            UserEntity user = new UserEntity();
+            user.setId(id);
+            user.setTelegramId(telegramId);
+            user.setUsername(username);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            user.setPhotoUrl(photoUrl);
+            user.setLanguage(language);
+            user.setCreatedAt(createdAt);
+            return user;
+        }
+    }
+}
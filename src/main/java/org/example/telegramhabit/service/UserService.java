@@ -7,6 +7,7 @@ import org.example.telegramhabit.entity.UserEntity;
 import org.example.telegramhabit.repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.UUID;
@@ -19,12 +20,19 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final AvatarStorageService avatarStorageService;
+    private final UserCache userCache;
+    private final TransactionTemplate transactionTemplate;
 
     // Что делает: проверяет входные данные и извлекает нужные значения.
-    // Как делает: проводит проверки и возвращает значение, либо бросает исключение при ошибке.
+    // Как делает: берёт пользователя из кэша запроса или снимков, при промахе читает БД и кладёт результат в кэш.
     public UserEntity requireById(UUID userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        return userCache.find(userId).orElseGet(() -> {
+            long stamp = userCache.stamp();
+            UserEntity user = userRepository.findById(userId)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found"));
+            userCache.put(user, stamp);
+            return user;
+        });
     }
 
     @Transactional(readOnly = true)
@@ -51,17 +59,22 @@ public class UserService {
         String normalized = normalizeLanguage(language);
         user.setLanguage(normalized);
         userRepository.save(user);
+        userCache.invalidate(userId);
         return profile(userId);
     }
 
-    @Transactional
     // Что делает: создаёт или сохраняет данные и возвращает результат операции.
-    // Как делает: валидирует вход, заполняет поля, сохраняет в БД или хранилище и возвращает итог.
+    // Как делает: сохраняет картинку вне транзакции (запись файлов и варианты не держат соединение с БД)
+    // и только затем короткой транзакцией записывает URL аватара пользователю.
     public UserProfileResponse uploadAvatar(UUID userId, MultipartFile file) {
-        UserEntity user = requireById(userId);
+        requireById(userId);
         String avatarUrl = avatarStorageService.saveAvatar(file);
-        user.setPhotoUrl(avatarUrl);
-        userRepository.save(user);
+        transactionTemplate.executeWithoutResult(status -> {
+            UserEntity user = requireById(userId);
+            user.setPhotoUrl(avatarUrl);
+            userRepository.save(user);
+            userCache.invalidate(userId);
+        });
         return profile(userId);
     }
 
@@ -0,0 +1,119 @@
+package org.example.telegramhabit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.telegramhabit.entity.UserStatsEntity;
+import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.example.telegramhabit.repository.UserStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+// Что делает: поддерживает агрегированную статистику пользователей (user_stats) для лидерборда.
+// Как делает: на каждое выполнение обновляет строку за O(1), а после удаления выполнений пересчитывает её из habit_completion.
+public class UserStatsService {
+
+    private final UserStatsRepository userStatsRepository;
+    private final HabitCompletionRepository completionRepository;
+
+    @Transactional
+    // Что делает: учитывает новое выполнение привычки в статистике пользователя.
+    // Как делает: под блокировкой строки увеличивает общий счётчик, продлевает или начинает серию активных дней
+    // и счётчик недели; если строка только что создана или выполнение задним числом, пересчитывает её целиком.
+    public void recordCompletion(UUID userId, LocalDate date) {
+        boolean created = userStatsRepository.insertIfAbsent(userId, LocalDateTime.now()) > 0;
+        UserStatsEntity stats = lockStats(userId);
+        if (created || (stats.getLastActiveDate() != null && date.isBefore(stats.getLastActiveDate()))) {
+            recompute(stats);
+            return;
+        }
+        stats.setTotalCompletions(stats.getTotalCompletions() + 1);
+        LocalDate lastActive = stats.getLastActiveDate();
+        if (lastActive == null || date.isAfter(lastActive)) {
+            stats.setCurrentStreak(lastActive != null && lastActive.plusDays(1).equals(date) ? stats.getCurrentStreak() + 1 : 1);
+            stats.setLastActiveDate(date);
+        }
+        LocalDate weekStart = weekStart(date);
+        if (weekStart.equals(stats.getWeekStart())) {
+            stats.setWeekCompletions(stats.getWeekCompletions() + 1);
+        } else if (stats.getWeekStart() == null || weekStart.isAfter(stats.getWeekStart())) {
+            stats.setWeekStart(weekStart);
+            stats.setWeekCompletions(1);
+        }
+        stats.setUpdatedAt(LocalDateTime.now());
+        userStatsRepository.save(stats);
+    }
+
+    @Transactional
+    // Что делает: пересчитывает статистику пользователя из истории выполнений.
+    // Как делает: считает общее число выполнений, текущую серию по дням с хотя бы одним выполнением и выполнения
+    // текущей недели; используется после удаления выполнений и для пользователей без строки статистики.
+    public UserStatsEntity recompute(UUID userId) {
+        userStatsRepository.insertIfAbsent(userId, LocalDateTime.now());
+        return recompute(lockStats(userId));
+    }
+
+    // Что делает: читает строку статистики под блокировкой.
+    // Как делает: строка к этому моменту уже гарантированно создана insertIfAbsent.
+    private UserStatsEntity lockStats(UUID userId) {
+        return userStatsRepository.findForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("User stats row is missing"));
+    }
+
+    // Что делает: пересчитывает уже заблокированную строку статистики из истории выполнений.
+    // Как делает: заполняет все агрегаты по habit_completion и сохраняет строку.
+    private UserStatsEntity recompute(UserStatsEntity stats) {
+        UUID userId = stats.getUserId();
+        List<LocalDate> activeDates = completionRepository.findActiveDatesByUserId(userId);
+        LocalDate weekStart = weekStart(LocalDate.now());
+        stats.setTotalCompletions(completionRepository.countCompletedByUserId(userId));
+        stats.setLastActiveDate(activeDates.isEmpty() ? null : activeDates.get(0));
+        stats.setCurrentStreak(leadingRun(activeDates));
+        stats.setWeekStart(weekStart);
+        stats.setWeekCompletions((int) completionRepository.countCompletedByUserIdAndDateBetween(userId, weekStart, weekStart.plusDays(6)));
+        stats.setUpdatedAt(LocalDateTime.now());
+        return userStatsRepository.save(stats);
+    }
+
+    // Что делает: возвращает текущую серию пользователя на сегодня.
+    // Как делает: серия живёт, пока последний активный день не раньше вчерашнего, иначе она уже прервалась.
+    public int effectiveStreak(UserStatsEntity stats, LocalDate today) {
+        LocalDate lastActive = stats.getLastActiveDate();
+        return lastActive != null && !lastActive.isBefore(today.minusDays(1)) ? stats.getCurrentStreak() : 0;
+    }
+
+    // Что делает: возвращает число выполнений пользователя за текущую неделю.
+    // Как делает: если счётчик относится к прошедшей неделе, считает его нулём.
+    public int effectiveWeekCompletions(UserStatsEntity stats, LocalDate today) {
+        return weekStart(today).equals(stats.getWeekStart()) ? stats.getWeekCompletions() : 0;
+    }
+
+    // Что делает: считает длину серии подряд идущих дней от самого свежего.
+    // Как делает: идёт по датам от новых к старым, пока каждая следующая ровно на день раньше предыдущей.
+    private int leadingRun(List<LocalDate> descDates) {
+        if (descDates.isEmpty()) {
+            return 0;
+        }
+        int run = 1;
+        for (int i = 1; i < descDates.size(); i++) {
+            if (!descDates.get(i).equals(descDates.get(i - 1).minusDays(1))) {
+                break;
+            }
+            run++;
+        }
+        return run;
+    }
+
+    // Что делает: возвращает понедельник недели, в которую попадает дата.
+    // Как делает: сдвигает дату назад до понедельника включительно.
+    private LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+}
@@ -0,0 +1,426 @@
+package org.example.telegramhabit.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitType;
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.entity.UserStatsEntity;
+import org.example.telegramhabit.repository.DigestLogRepository;
+import org.example.telegramhabit.repository.FriendshipRepository;
+import org.example.telegramhabit.repository.HabitCompletionRepository;
+import org.example.telegramhabit.repository.HabitRepository;
+import org.example.telegramhabit.repository.UserRepository;
+import org.example.telegramhabit.repository.UserStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+// Что делает: раз в неделю собирает пользователям дайджест: выполнения за неделю, лучшие серии и успехи друзей.
+// Как делает: keyset-проходом делит пользователей на партиции, партиции обрабатывает параллельно в отдельном
+// ForkJoinPool пакетными запросами (по несколько запросов на партицию, а не на пользователя) и кладёт готовые
+// сообщения в очередь DigestDeliveryService, которая отправляет их с ограничением скорости.
+public class WeeklyDigestService {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("dd.MM");
+
+    private final UserRepository userRepository;
+    private final HabitRepository habitRepository;
+    private final HabitCompletionRepository completionRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final UserStatsRepository userStatsRepository;
+    private final DigestLogRepository digestLogRepository;
+    private final StreakService streakService;
+    private final UserStatsService userStatsService;
+    private final DigestDeliveryService digestDeliveryService;
+    private final TelegramBotClient telegramBotClient;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weekly-digest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.telegram.digest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.telegram.digest.zone-id:UTC}")
+    private String zoneId;
+
+    @Value("${app.telegram.digest.partition-size:500}")
+    private int partitionSize;
+
+    @Value("${app.telegram.digest.parallelism:4}")
+    private int parallelism;
+
+    @Scheduled(cron = "${app.telegram.digest.cron:0 0 9 * * MON}", zone = "${app.telegram.digest.zone-id:UTC}")
+    // Что делает: запускает сборку дайджестов по расписанию.
+    // Как делает: проверяет флаг включения и токен бота и отдаёт полный проход на сегодняшнюю дату отдельному потоку,
+    // чтобы общий поток @Scheduled не ждал места в очереди доставки и не задерживал остальные задачи.
+    public void sendWeeklyDigests() {
+        if (!enabled || !telegramBotClient.isConfigured()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(ZoneId.of(zoneId));
+        runner.execute(() -> {
+            try {
+                run(today);
+            } catch (RuntimeException e) {
+                log.error("Weekly digest for {} failed", today, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    // Что делает: останавливает поток сборки дайджеста при остановке приложения.
+    // Как делает: прерывает текущий проход; уже отправленные дайджесты записаны в digest_log и не повторятся.
+    void stop() {
+        runner.shutdownNow();
+    }
+
+    // Что делает: собирает дайджесты за прошлую неделю и ставит их в очередь отправки.
+    // Как делает: сначала читает все id получателей партициями, затем обрабатывает партиции параллельно,
+    // замеряя время каждой стадии; повторный запуск пропускает тех, кому дайджест за неделю уже отправлен.
+    public Report run(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Weekly digest is already running");
+        }
+        try {
+            LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+            Counters counters = new Counters();
+            long started = System.nanoTime();
+
+            List<List<UUID>> partitions = scanPartitions();
+            long scanNanos = System.nanoTime() - started;
+
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.submit(() -> partitions.parallelStream()
+                        .forEach(partition -> processPartition(partition, weekStart, today, counters))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Weekly digest was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Weekly digest failed", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+
+            long users = partitions.stream().mapToLong(List::size).sum();
+            Report report = new Report(
+                    users,
+                    partitions.size(),
+                    counters.queued.sum(),
+                    counters.alreadySent.sum(),
+                    counters.noHabits.sum(),
+                    millis(scanNanos),
+                    millis(counters.loadNanos.sum()),
+                    millis(counters.computeNanos.sum()),
+                    millis(counters.enqueueNanos.sum()),
+                    millis(System.nanoTime() - started)
+            );
+            log.info("Weekly digest {}: users={} partitions={} queued={} alreadySent={} noHabits={} "
+                            + "scan={}ms ({} users/s) load={}ms ({} users/s) compute={}ms ({} users/s) "
+                            + "enqueue={}ms ({} msg/s) total={}ms ({} users/s)",
+                    weekStart, report.users(), report.partitions(), report.queued(), report.alreadySent(), report.noHabits(),
+                    report.scanMs(), rate(users, report.scanMs()),
+                    report.loadMs(), rate(users, report.loadMs()),
+                    report.computeMs(), rate(users, report.computeMs()),
+                    report.enqueueMs(), rate(report.queued(), report.enqueueMs()),
+                    report.totalMs(), rate(users, report.totalMs()));
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Что делает: читает id всех пользователей с Telegram и делит их на партиции.
+    // Как делает: keyset-пагинация по id страницами размера партиции; в памяти остаются только UUID.
+    private List<List<UUID>> scanPartitions() {
+        int size = Math.max(1, partitionSize);
+        List<List<UUID>> partitions = new ArrayList<>();
+        UUID after = MIN_ID;
+        while (true) {
+            List<UUID> page = userRepository.findTelegramUserIdsAfter(after, PageRequest.of(0, size));
+            if (page.isEmpty()) {
+                return partitions;
+            }
+            partitions.add(page);
+            if (page.size() < size) {
+                return partitions;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    // Что делает: собирает и ставит в очередь дайджесты одной партиции.
+    // Как делает: загружает всё нужное пакетными запросами по IN-списку партиции, считает тексты в памяти
+    // и кладёт их в очередь доставки; время каждой стадии добавляет в общие счётчики.
+    private void processPartition(List<UUID> partition, LocalDate weekStart, LocalDate today, Counters counters) {
+        long loadStarted = System.nanoTime();
+        Set<UUID> sent = new HashSet<>(digestLogRepository.findUserIdsSent(weekStart, partition));
+        List<UUID> userIds = partition.stream().filter(id -> !sent.contains(id)).toList();
+        counters.alreadySent.add(sent.size());
+        if (userIds.isEmpty()) {
+            counters.loadNanos.add(System.nanoTime() - loadStarted);
+            return;
+        }
+        PartitionData data = load(userIds, weekStart);
+        long computeStarted = System.nanoTime();
+        counters.loadNanos.add(computeStarted - loadStarted);
+
+        List<DigestDeliveryService.DigestMessage> messages = new ArrayList<>();
+        for (UserEntity user : data.users()) {
+            List<HabitEntity> habits = data.habitsByUser().getOrDefault(user.getId(), List.of());
+            if (habits.isEmpty()) {
+                counters.noHabits.increment();
+                continue;
+            }
+            messages.add(new DigestDeliveryService.DigestMessage(
+                    user.getId(), user.getTelegramId(), weekStart, compose(user, habits, data, weekStart, today)));
+        }
+        long enqueueStarted = System.nanoTime();
+        counters.computeNanos.add(enqueueStarted - computeStarted);
+
+        try {
+            for (DigestDeliveryService.DigestMessage message : messages) {
+                digestDeliveryService.enqueue(message);
+                counters.queued.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Weekly digest was interrupted", e);
+        } finally {
+            counters.enqueueNanos.add(System.nanoTime() - enqueueStarted);
+        }
+    }
+
+    // Что делает: загружает данные партиции для дайджеста.
+    // Как делает: по одному запросу на профили, активные привычки, недельные счётчики по привычкам, даты ещё не
+    // инициализированных серий, рёбра дружбы, недельные счётчики друзей, профили друзей и их user_stats.
+    private PartitionData load(List<UUID> userIds, LocalDate weekStart) {
+        LocalDate weekEnd = weekStart.plusDays(6);
+        List<UserEntity> users = userRepository.findAllById(userIds);
+
+        List<HabitEntity> habits = habitRepository.findActiveByUserIds(userIds);
+        Map<UUID, List<HabitEntity>> habitsByUser = habits.stream()
+                .collect(Collectors.groupingBy(habit -> habit.getUser().getId()));
+        Map<UUID, Long> weekCountByHabit = counts(completionRepository.countCompletedByHabitBetween(userIds, weekStart, weekEnd));
+
+        List<HabitEntity> uninitialized = habits.stream().filter(habit -> !habit.isStreakInitialized()).toList();
+        Map<UUID, List<LocalDate>> datesByHabit = uninitialized.isEmpty() ? Map.of()
+                : completionRepository.findCompletedDates(uninitialized).stream()
+                .collect(Collectors.groupingBy(
+                        HabitCompletionRepository.CompletionDateProjection::getHabitId,
+                        Collectors.mapping(HabitCompletionRepository.CompletionDateProjection::getDate, Collectors.toList())));
+
+        Map<UUID, List<UUID>> friendsByUser = friendshipRepository.findPairsByUserIds(userIds).stream()
+                .collect(Collectors.groupingBy(
+                        FriendshipRepository.FriendPair::getUserId,
+                        Collectors.mapping(FriendshipRepository.FriendPair::getFriendId, Collectors.toList())));
+        Set<UUID> friendIds = friendsByUser.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+        Map<UUID, Long> weekCountByFriend = Map.of();
+        Map<UUID, UserEntity> friends = Map.of();
+        Map<UUID, UserStatsEntity> friendStats = Map.of();
+        if (!friendIds.isEmpty()) {
+            weekCountByFriend = counts(completionRepository.countCompletedByUserBetween(friendIds, weekStart, weekEnd));
+            friends = userRepository.findAllById(friendIds).stream()
+                    .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+            friendStats = userStatsRepository.findAllById(friendIds).stream()
+                    .collect(Collectors.toMap(UserStatsEntity::getUserId, Function.identity()));
+        }
+        return new PartitionData(users, habitsByUser, weekCountByHabit, datesByHabit,
+                friendsByUser, weekCountByFriend, friends, friendStats);
+    }
+
+    // Что делает: собирает текст дайджеста одного пользователя.
+    // Как делает: суммирует недельные выполнения и выполненные цели, выбирает привычку с самой длинной текущей
+    // серией (серии берутся из сохранённого состояния) и самого активного друга за неделю и друга с лучшей серией.
+    private String compose(UserEntity user, List<HabitEntity> habits, PartitionData data, LocalDate weekStart, LocalDate today) {
+        boolean ru = user.getLanguage() != null && user.getLanguage().equalsIgnoreCase("ru");
+        long completions = 0;
+        int onTarget = 0;
+        HabitEntity topHabit = null;
+        int topStreak = 0;
+        int topBest = 0;
+        for (HabitEntity habit : habits) {
+            long count = data.weekCountByHabit().getOrDefault(habit.getId(), 0L);
+            completions += count;
+            if (count >= weeklyTarget(habit)) {
+                onTarget++;
+            }
+            List<LocalDate> dates = data.datesByHabit().getOrDefault(habit.getId(), List.of());
+            int streak = streakService.currentStreak(habit, dates, today);
+            if (streak > topStreak) {
+                topHabit = habit;
+                topStreak = streak;
+                topBest = streakService.bestStreak(habit, dates, today);
+            }
+        }
+
+        UserEntity activeFriend = null;
+        long activeFriendCount = 0;
+        UserEntity streakFriend = null;
+        int streakFriendDays = 0;
+        for (UUID friendId : data.friendsByUser().getOrDefault(user.getId(), List.of())) {
+            UserEntity friend = data.friends().get(friendId);
+            if (friend == null) {
+                continue;
+            }
+            long count = data.weekCountByFriend().getOrDefault(friendId, 0L);
+            if (count > activeFriendCount) {
+                activeFriend = friend;
+                activeFriendCount = count;
+            }
+            UserStatsEntity stats = data.friendStats().get(friendId);
+            int streak = stats == null ? 0 : userStatsService.effectiveStreak(stats, today);
+            if (streak > streakFriendDays) {
+                streakFriend = friend;
+                streakFriendDays = streak;
+            }
+        }
+
+        String period = weekStart.format(DAY_FORMAT) + "–" + weekStart.plusDays(6).format(DAY_FORMAT);
+        StringBuilder text = new StringBuilder();
+        if (ru) {
+            text.append("Итоги недели ").append(period).append(": ").append(completions).append(" выполнений, цель выполнена у ")
+                    .append(onTarget).append(" из ").append(habits.size()).append(" привычек.");
+            if (topHabit != null) {
+                text.append("\nЛучшая серия: «").append(topHabit.getTitle()).append("» — ").append(topStreak)
+                        .append(topHabit.getType() == HabitType.WEEKLY ? " нед." : " дн.");
+                if (topStreak >= topBest) {
+                    text.append(" (личный рекорд!)");
+                }
+            }
+            if (activeFriend != null) {
+                text.append("\nСамый активный друг: ").append(displayName(activeFriend, ru)).append(" — ")
+                        .append(activeFriendCount).append(" выполнений.");
+            }
+            if (streakFriend != null) {
+                text.append("\nСерия друга: ").append(displayName(streakFriend, ru)).append(" — ").append(streakFriendDays).append(" дн. подряд.");
+            }
+        } else {
+            text.append("Your week ").append(period).append(": ").append(completions).append(" completions, ")
+                    .append(onTarget).append(" of ").append(habits.size()).append(" habits on target.");
+            if (topHabit != null) {
+                text.append("\nLongest streak: \"").append(topHabit.getTitle()).append("\" — ").append(topStreak)
+                        .append(topHabit.getType() == HabitType.WEEKLY ? " week(s)" : " day(s)");
+                if (topStreak >= topBest) {
+                    text.append(" (personal best!)");
+                }
+            }
+            if (activeFriend != null) {
+                text.append("\nMost active friend: ").append(displayName(activeFriend, ru)).append(" — ")
+                        .append(activeFriendCount).append(" completions.");
+            }
+            if (streakFriend != null) {
+                text.append("\nFriend streak: ").append(displayName(streakFriend, ru)).append(" — ").append(streakFriendDays).append(" day(s) in a row.");
+            }
+        }
+        return text.toString();
+    }
+
+    // Что делает: возвращает недельную цель привычки.
+    // Как делает: ежедневная привычка должна быть выполнена все 7 дней, недельная — timesPerWeek раз.
+    private int weeklyTarget(HabitEntity habit) {
+        if (habit.getType() == HabitType.WEEKLY) {
+            return habit.getTimesPerWeek() == null ? 1 : habit.getTimesPerWeek();
+        }
+        return 7;
+    }
+
+    // Что делает: возвращает имя друга для текста дайджеста.
+    // Как делает: берёт имя, затем username, иначе общую подпись на языке получателя.
+    private String displayName(UserEntity user, boolean ru) {
+        if (user.getFirstName() != null && !user.getFirstName().isBlank()) {
+            return user.getFirstName();
+        }
+        if (user.getUsername() != null && !user.getUsername().isBlank()) {
+            return "@" + user.getUsername();
+        }
+        return ru ? "друг" : "friend";
+    }
+
+    // Что делает: превращает результат агрегирующего запроса в словарь.
+    // Как делает: ключ — id, значение — количество.
+    private Map<UUID, Long> counts(Collection<HabitCompletionRepository.IdCount> rows) {
+        Map<UUID, Long> result = new HashMap<>();
+        for (HabitCompletionRepository.IdCount row : rows) {
+            result.put(row.getId(), row.getCount());
+        }
+        return result;
+    }
+
+    // Что делает: переводит наносекунды в миллисекунды.
+    // Как делает: целочисленное деление.
+    private long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    // Что делает: считает пропускную способность стадии.
+    // Как делает: число элементов на секунду времени стадии; пустая стадия даёт 0.
+    private long rate(long items, long ms) {
+        return ms <= 0 ? 0 : items * 1000 / ms;
+    }
+
+    // Что делает: описывает итог одного прохода дайджеста.
+    // Как делает: хранит число пользователей, партиций и сообщений, пропуски и время каждой стадии; время
+    // стадий load/compute/enqueue суммируется по всем потокам.
+    public record Report(long users, long partitions, long queued, long alreadySent, long noHabits,
+                         long scanMs, long loadMs, long computeMs, long enqueueMs, long totalMs) {
+    }
+
+    // Что делает: хранит данные одной партиции, загруженные пакетными запросами.
+    // Как делает: словари по id пользователя, привычки и друга.
+    private record PartitionData(
+            List<UserEntity> users,
+            Map<UUID, List<HabitEntity>> habitsByUser,
+            Map<UUID, Long> weekCountByHabit,
+            Map<UUID, List<LocalDate>> datesByHabit,
+            Map<UUID, List<UUID>> friendsByUser,
+            Map<UUID, Long> weekCountByFriend,
+            Map<UUID, UserEntity> friends,
+            Map<UUID, UserStatsEntity> friendStats
+    ) {
+    }
+
+    // Что делает: собирает счётчики прохода из параллельных потоков.
+    // Как делает: LongAdder без блокировок на каждую метрику и время стадии в наносекундах.
+    private static final class Counters {
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder alreadySent = new LongAdder();
+        private final LongAdder noHabits = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+        private final LongAdder computeNanos = new LongAdder();
+        private final LongAdder enqueueNanos = new LongAdder();
+    }
+}
@@ -0,0 +1,12 @@
+create table stored_image_variant (
+    id uuid primary key,
+    image_id uuid not null references stored_image(id) on delete cascade,
+    size_px integer not null,
+    content_type varchar(128) not null,
+    content_hash varchar(64) not null,
+    size_bytes bigint not null,
+    created_at timestamp not null,
+    unique (image_id, size_px)
+);
+
+create index idx_stored_image_variant_content_hash on stored_image_variant(content_hash);
@@ -0,0 +1,9 @@
+update app_user u
+set photo_url = '/api/files/' || si.id || '/' || left(si.content_hash, 16)
+from stored_image si
+where u.photo_url = '/api/files/' || si.id;
+
+update habit h
+set image_url = '/api/files/' || si.id || '/' || left(si.content_hash, 16)
+from stored_image si
+where h.image_url = '/api/files/' || si.id;
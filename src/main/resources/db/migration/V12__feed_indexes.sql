@@ -0,0 +1,3 @@
+create index idx_activity_created_at_user on activity_log(created_at desc, user_id);
+
+drop index if exists idx_friendship_user_id;
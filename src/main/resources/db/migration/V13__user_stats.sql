@@ -0,0 +1,46 @@
+create table user_stats (
+    user_id uuid primary key references app_user(id),
+    total_completions bigint not null default 0,
+    current_streak integer not null default 0,
+    last_active_date date,
+    week_start date,
+    week_completions integer not null default 0,
+    updated_at timestamp not null
+);
+
+insert into user_stats (user_id, total_completions, current_streak, last_active_date, week_start, week_completions, updated_at)
+with active_days as (
+    select distinct h.user_id, c.date
+    from habit_completion c
+    join habit h on h.id = c.habit_id
+    where c.completed
+),
+runs as (
+    select user_id, max(date) as run_end, count(*) as run_length
+    from (
+        select user_id, date, date - cast(row_number() over (partition by user_id order by date) as integer) as run_id
+        from active_days
+    ) numbered
+    group by user_id, run_id
+),
+latest_run as (
+    select distinct on (user_id) user_id, run_end, run_length
+    from runs
+    order by user_id, run_end desc
+),
+totals as (
+    select h.user_id,
+           count(*) as total_completions,
+           count(*) filter (
+               where c.date >= cast(date_trunc('week', current_date) as date)
+                 and c.date < cast(date_trunc('week', current_date) as date) + 7
+           ) as week_completions
+    from habit_completion c
+    join habit h on h.id = c.habit_id
+    where c.completed
+    group by h.user_id
+)
+select t.user_id, t.total_completions, l.run_length, l.run_end,
+       cast(date_trunc('week', current_date) as date), t.week_completions, now()
+from totals t
+join latest_run l on l.user_id = t.user_id;
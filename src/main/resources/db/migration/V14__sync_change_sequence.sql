@@ -0,0 +1,31 @@
+-- Per-user change sequence for delta sync: every habit/completion mutation takes the next value
+-- of sync_state.last_seq and stamps it on the changed rows (or on a tombstone for deleted ones).
+create table sync_state (
+    user_id uuid primary key references app_user(id),
+    last_seq bigint not null,
+    tombstone_floor bigint not null default 0,
+    updated_at timestamp not null
+);
+
+create table sync_tombstone (
+    id uuid primary key,
+    user_id uuid not null references app_user(id),
+    entity_type varchar(20) not null,
+    entity_id uuid not null,
+    seq bigint not null,
+    created_at timestamp not null,
+    constraint chk_sync_tombstone_type check (entity_type in ('HABIT', 'COMPLETION'))
+);
+
+create index idx_sync_tombstone_user_seq on sync_tombstone(user_id, seq);
+create index idx_sync_tombstone_created_at on sync_tombstone(created_at);
+
+alter table habit add column change_seq bigint not null default 1;
+alter table habit_completion add column change_seq bigint not null default 1;
+
+create index idx_habit_user_change_seq on habit(user_id, change_seq);
+create index idx_completion_habit_change_seq on habit_completion(habit_id, change_seq);
+
+-- Existing data is version 1, so clients that already synced once are not sent everything again.
+insert into sync_state (user_id, last_seq, tombstone_floor, updated_at)
+select id, 1, 0, now() from app_user;
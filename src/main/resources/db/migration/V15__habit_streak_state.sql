@@ -0,0 +1,7 @@
+-- Stored streak state per habit, maintained incrementally on completion changes.
+-- Habits start uninitialized; their state is computed from history on the first completion change.
+alter table habit add column streak_initialized boolean not null default false;
+alter table habit add column streak_best integer not null default 0;
+alter table habit add column streak_best_runs integer not null default 0;
+alter table habit add column streak_latest_end date;
+alter table habit add column streak_latest_length integer not null default 0;
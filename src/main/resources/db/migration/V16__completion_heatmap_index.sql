@@ -0,0 +1 @@
+create index idx_completion_completed_habit_date on habit_completion(habit_id, date) where completed;
@@ -0,0 +1,29 @@
+-- Quantitative habits: a habit with daily_target counts amounts (ml, pages, minutes) logged as entries.
+-- habit_value_rollup keeps per-day, per-week and per-month totals updated on every entry write,
+-- so value stats never sum raw entries.
+alter table habit add column unit varchar(32);
+alter table habit add column daily_target bigint;
+
+alter table habit add constraint chk_habit_daily_target check (daily_target is null or daily_target > 0);
+
+create table habit_entry (
+    id uuid primary key,
+    habit_id uuid not null references habit(id),
+    date date not null,
+    amount bigint not null,
+    created_at timestamp not null,
+    constraint chk_habit_entry_amount check (amount > 0)
+);
+
+create index idx_habit_entry_habit_date on habit_entry(habit_id, date);
+
+create table habit_value_rollup (
+    id uuid primary key,
+    habit_id uuid not null references habit(id),
+    period varchar(10) not null,
+    period_start date not null,
+    total bigint not null,
+    entries integer not null,
+    unique (habit_id, period, period_start),
+    constraint chk_habit_value_rollup_period check (period in ('DAY', 'WEEK', 'MONTH'))
+);
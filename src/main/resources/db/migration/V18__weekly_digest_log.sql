@@ -0,0 +1,8 @@
+-- One row per delivered weekly digest, so a re-run of the digest job skips users who already got this week's message.
+create table digest_log (
+    id uuid primary key,
+    user_id uuid not null references app_user(id),
+    week_start date not null,
+    sent_at timestamp not null,
+    unique (user_id, week_start)
+);
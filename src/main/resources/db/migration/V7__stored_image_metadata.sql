@@ -0,0 +1,6 @@
+alter table stored_image
+    add column content_hash varchar(64),
+    add column size_bytes bigint;
+
+alter table stored_image
+    alter column data drop not null;
@@ -0,0 +1,8 @@
+alter table stored_image
+    drop column data;
+
+alter table stored_image
+    alter column content_hash set not null,
+    alter column size_bytes set not null;
+
+create index idx_stored_image_content_hash on stored_image(content_hash);
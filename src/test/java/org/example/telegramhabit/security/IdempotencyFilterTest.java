@@ -0,0 +1,171 @@
+package org.example.telegramhabit.security;
+
+import org.example.telegramhabit.entity.UserEntity;
+import org.example.telegramhabit.repository.UserRepository;
+import org.example.telegramhabit.service.IdempotencyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Что делает: проверяет ветки IdempotencyFilter на настоящей цепочке Spring Security.
+// Как делает: шлёт запросы с JWT и заголовком Idempotency-Key через MockMvc и сверяет статусы и заголовок
+// Idempotent-Replayed: повтор, 409 во время выполнения, 422 на другой путь или тело, освобождение ключа после
+// ошибки и отказ от хэша тела для multipart.
+@SpringBootTest(properties = "app.storage.image-dir=target/idempotency-test-images")
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    private static final String BATCH_URL = "/api/habits/completions/batch";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    private UUID userId;
+    private String token;
+    private String key;
+    private UUID habitId;
+
+    @BeforeEach
+    // Что делает: создаёт пользователя и ключ для каждого теста.
+    // Как делает: сохраняет пользователя, выпускает ему JWT и берёт случайные Idempotency-Key и id привычки.
+    void setUp() {
+        UserEntity user = new UserEntity();
+        user.setId(UUID.randomUUID());
+        user.setTelegramId(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        user.setLanguage("en");
+        user.setCreatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        userId = user.getId();
+        token = jwtService.generate(userId);
+        key = UUID.randomUUID().toString();
+        habitId = UUID.randomUUID();
+    }
+
+    @Test
+    // Что делает: проверяет, что повтор с тем же телом отдаёт сохранённый ответ.
+    // Как делает: шлёт пакет дважды с одним ключом и сравнивает тела; второй ответ помечен Idempotent-Replayed.
+    void replaysStoredResponse() throws Exception {
+        MvcResult first = mockMvc.perform(batch(batchBody(LocalDate.now()))).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn();
+        MvcResult second = mockMvc.perform(batch(batchBody(LocalDate.now()))).andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+    }
+
+    @Test
+    // Что делает: проверяет 409, пока первый запрос с ключом ещё выполняется.
+    // Как делает: захватывает ключ в хранилище напрямую, как это делает фильтр в начале первого запроса.
+    void rejectsRetryWhileFirstRequestIsInFlight() throws Exception {
+        idempotencyStore.claim(userId, key, "POST " + BATCH_URL);
+        mockMvc.perform(batch(batchBody(LocalDate.now()))).andExpect(status().isConflict());
+    }
+
+    @Test
+    // Что делает: проверяет 422 на повтор ключа для другого пути.
+    // Как делает: использует ключ пакета для запроса смены языка.
+    void rejectsKeyReusedForDifferentPath() throws Exception {
+        mockMvc.perform(batch(batchBody(LocalDate.now()))).andExpect(status().isOk());
+        mockMvc.perform(authorized(put("/api/users/language"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"language\":\"ru\"}"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    // Что делает: проверяет 422 на повтор пакета отметок с другим телом.
+    // Как делает: шлёт пакет на другую дату с тем же ключом; сохранённый ответ не должен вернуться вместо него.
+    void rejectsRetriedBatchWithDifferentBody() throws Exception {
+        mockMvc.perform(batch(batchBody(LocalDate.now()))).andExpect(status().isOk());
+        mockMvc.perform(batch(batchBody(LocalDate.now().minusDays(1))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    // Что делает: проверяет, что неуспешный ответ не сохраняется и освобождает ключ.
+    // Как делает: первый запрос с невалидным телом получает 400, повтор с исправленным телом выполняется заново.
+    void releasesKeyAfterNonSuccessResponse() throws Exception {
+        mockMvc.perform(batch("{\"operations\":[]}")).andExpect(status().isBadRequest());
+        mockMvc.perform(batch(batchBody(LocalDate.now())))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    // Что делает: проверяет, что у multipart-загрузки тело не входит в отпечаток.
+    // Как делает: повторяет загрузку аватара с тем же ключом, но другим файлом — граница multipart у каждого
+    // повтора своя, поэтому повтор отдаёт сохранённый ответ, а не 422.
+    void skipsBodyHashForMultipart() throws Exception {
+        MvcResult first = mockMvc.perform(authorized(multipart("/api/users/avatar").file(avatar(10))))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult second = mockMvc.perform(authorized(multipart("/api/users/avatar").file(avatar(20))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andReturn();
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+    }
+
+    // Что делает: строит запрос пакета отметок с ключом и JWT.
+    // Как делает: POST JSON на /api/habits/completions/batch.
+    private MockHttpServletRequestBuilder batch(String body) {
+        return authorized(post(BATCH_URL)).contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    // Что делает: добавляет к запросу JWT и Idempotency-Key.
+    // Как делает: выставляет заголовки Authorization и Idempotency-Key текущего теста.
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder builder) {
+        return builder
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(IdempotencyFilter.HEADER, key);
+    }
+
+    // Что делает: собирает тело пакета из одной отметки.
+    // Как делает: отметка несуществующей привычки на дату — пакет её отклоняет, но отвечает 200.
+    private String batchBody(LocalDate date) {
+        return "{\"operations\":[{\"habitId\":\"" + habitId + "\",\"date\":\"" + date + "\",\"completed\":true}]}";
+    }
+
+    // Что делает: создаёт PNG для загрузки аватара.
+    // Как делает: рисует пустую картинку заданного размера, чтобы у разных загрузок были разные байты.
+    private MockMultipartFile avatar(int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("file", "avatar.png", MediaType.IMAGE_PNG_VALUE, out.toByteArray());
+    }
+}
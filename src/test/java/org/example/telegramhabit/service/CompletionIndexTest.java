@@ -0,0 +1,96 @@
+package org.example.telegramhabit.service;
+
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitType;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Что делает: проверяет, что ответы индекса выполнений совпадают с прямым подсчётом по датам.
+// Как делает: на случайных историях ежедневных и недельных привычек строит индекс и для случайных диапазонов,
+// в том числе выходящих за начало привычки и за текущий день, сравнивает completed и possible с перебором по дням.
+class CompletionIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 15);
+    private static final int HISTORY_DAYS = 120;
+    private static final int RANGES = 300;
+
+    @Test
+    // Что делает: проверяет ежедневные привычки.
+    // Как делает: прогоняет несколько историй с разной плотностью отметок и датой создания.
+    void dailyIndexMatchesBruteForce() {
+        for (long seed = 1; seed <= 20; seed++) {
+            check(HabitType.DAILY, null, seed);
+        }
+    }
+
+    @Test
+    // Что делает: проверяет недельные привычки с разной целью на неделю.
+    // Как делает: прогоняет истории для целей от 1 до 7 раз в неделю.
+    void weeklyIndexMatchesBruteForce() {
+        for (int timesPerWeek = 1; timesPerWeek <= 7; timesPerWeek++) {
+            for (long seed = 1; seed <= 6; seed++) {
+                check(HabitType.WEEKLY, timesPerWeek, seed * 31 + timesPerWeek);
+            }
+        }
+    }
+
+    // Что делает: прогоняет одну случайную историю.
+    // Как делает: строит даты и дату создания привычки, затем сравнивает индекс с перебором на случайных диапазонах.
+    private void check(HabitType type, Integer timesPerWeek, long seed) {
+        Random random = new Random(seed);
+        double density = 0.2 + random.nextDouble() * 0.7;
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (int i = 0; i < HISTORY_DAYS; i++) {
+            if (random.nextDouble() < density) {
+                dates.add(TODAY.minusDays(i));
+            }
+        }
+        HabitEntity habit = new HabitEntity();
+        habit.setType(type);
+        habit.setTimesPerWeek(timesPerWeek);
+        habit.setCreatedAt(TODAY.minusDays(random.nextInt(HISTORY_DAYS + 30)).atTime(9, 0));
+
+        CompletionIndex index = CompletionIndex.build(habit, dates, TODAY);
+        LocalDate origin = habit.getCreatedAt().toLocalDate();
+        if (!dates.isEmpty() && dates.first().isBefore(origin)) {
+            origin = dates.first();
+        }
+
+        for (int i = 0; i < RANGES; i++) {
+            LocalDate from = TODAY.minusDays(random.nextInt(HISTORY_DAYS + 60) - 20);
+            LocalDate to = from.plusDays(random.nextInt(70));
+            String context = "seed=" + seed + " from=" + from + " to=" + to;
+            int[] expected = bruteForce(habit, dates, origin, from, to);
+            assertEquals(expected[0], index.completed(from, to), context);
+            assertEquals(expected[1], index.possible(from, to, TODAY), context);
+        }
+    }
+
+    // Что делает: считает выполненные и возможные периоды диапазона перебором.
+    // Как делает: проходит по дням [from, to] и берёт те, с которых начинается период привычки
+    // (любой день или понедельник) не раньше её начала и не позже текущего дня.
+    private int[] bruteForce(HabitEntity habit, TreeSet<LocalDate> dates, LocalDate origin, LocalDate from, LocalDate to) {
+        boolean daily = habit.getType() == HabitType.DAILY;
+        LocalDate first = daily ? origin : origin.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        int completed = 0;
+        int possible = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.isBefore(first) || day.isAfter(TODAY) || (!daily && day.getDayOfWeek() != DayOfWeek.MONDAY)) {
+                continue;
+            }
+            possible++;
+            int count = dates.subSet(day, true, day.plusDays(daily ? 0 : 6), true).size();
+            if (count >= (daily ? 1 : habit.getTimesPerWeek())) {
+                completed++;
+            }
+        }
+        return new int[]{completed, possible};
+    }
+}
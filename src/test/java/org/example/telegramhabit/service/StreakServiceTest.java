@@ -0,0 +1,109 @@
+package org.example.telegramhabit.service;
+
+import org.example.telegramhabit.entity.HabitEntity;
+import org.example.telegramhabit.entity.HabitType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Что делает: проверяет, что починка состояния серии совпадает с полным пересчётом.
+// Как делает: на случайных историях ежедневных и недельных привычек применяет случайные отметки и снятия
+// через repair и после каждого шага сравнивает результат с fullState и с прежним расчётом по датам.
+class StreakServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 15);
+    private static final int HISTORY_DAYS = 120;
+    private static final int STEPS = 400;
+
+    private final StreakService streakService = new StreakService(null);
+
+    @Test
+    // Что делает: проверяет ежедневные привычки.
+    // Как делает: прогоняет несколько историй с разной плотностью отметок.
+    void dailyRepairMatchesFullRecompute() {
+        for (long seed = 1; seed <= 20; seed++) {
+            check(habit(HabitType.DAILY, null), seed);
+        }
+    }
+
+    @Test
+    // Что делает: проверяет недельные привычки с разной целью на неделю.
+    // Как делает: прогоняет истории для целей от 1 до 7 раз в неделю.
+    void weeklyRepairMatchesFullRecompute() {
+        for (int timesPerWeek = 1; timesPerWeek <= 7; timesPerWeek++) {
+            for (long seed = 1; seed <= 6; seed++) {
+                check(habit(HabitType.WEEKLY, timesPerWeek), seed * 31 + timesPerWeek);
+            }
+        }
+    }
+
+    // Что делает: прогоняет одну случайную историю.
+    // Как делает: строит начальные даты, затем отмечает и снимает случайные дни, чиня состояние как приложение.
+    private void check(HabitEntity habit, long seed) {
+        Random random = new Random(seed);
+        double density = 0.2 + random.nextDouble() * 0.7;
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        for (int i = 0; i < HISTORY_DAYS; i++) {
+            if (random.nextDouble() < density) {
+                dates.add(TODAY.minusDays(i));
+            }
+        }
+        StreakService.StreakState state = streakService.fullState(habit, dates);
+        StreakService.CompletionDates source = source(dates);
+
+        for (int step = 0; step < STEPS; step++) {
+            LocalDate date = TODAY.minusDays(random.nextInt(HISTORY_DAYS));
+            boolean completed = !dates.contains(date);
+            if (completed) {
+                dates.add(date);
+            } else {
+                dates.remove(date);
+            }
+            StreakService.StreakState repaired = streakService.repair(habit, state, date, completed, source);
+            state = repaired == null ? streakService.fullState(habit, dates) : repaired;
+
+            String context = "seed=" + seed + " step=" + step + " date=" + date + " completed=" + completed;
+            assertEquals(streakService.fullState(habit, dates), state, context);
+
+            List<LocalDate> descDates = new ArrayList<>(dates.descendingSet());
+            assertEquals(streakService.currentStreak(habit, descDates, TODAY), streakService.currentStreak(habit, state, TODAY), context);
+            assertEquals(streakService.bestStreak(habit, descDates, TODAY), state.best(), context);
+        }
+    }
+
+    // Что делает: отдаёт даты из памяти вместо БД.
+    // Как делает: читает диапазон и предыдущую дату из отсортированного множества.
+    private StreakService.CompletionDates source(TreeSet<LocalDate> dates) {
+        return new StreakService.CompletionDates() {
+            @Override
+            // Что делает: возвращает даты в диапазоне.
+            // Как делает: берёт подмножество TreeSet.
+            public List<LocalDate> between(LocalDate from, LocalDate to) {
+                return from.isAfter(to) ? List.of() : new ArrayList<>(dates.subSet(from, true, to, true));
+            }
+
+            @Override
+            // Что делает: возвращает последнюю дату до заданной.
+            // Как делает: берёт lower из TreeSet.
+            public Optional<LocalDate> latestBefore(LocalDate date) {
+                return Optional.ofNullable(dates.lower(date));
+            }
+        };
+    }
+
+    // Что делает: создаёт привычку без сохранённого состояния серии.
+    // Как делает: заполняет тип и цель на неделю.
+    private HabitEntity habit(HabitType type, Integer timesPerWeek) {
+        HabitEntity habit = new HabitEntity();
+        habit.setType(type);
+        habit.setTimesPerWeek(timesPerWeek);
+        return habit;
+    }
+}